@@ -0,0 +1,12 @@
+package top.kgame.lib.ecs;
+
+/**
+ * 堆外存储的组件
+ * <p>组件类中的非静态字段只能是int、long、float、double，加入archetype后字段值被复制到堆外内存中，不再保留组件对象。</p>
+ * <p>组件类必须提供无参构造函数，{@link Entity#getComponent(Class)}返回的是根据堆外数据新创建的副本，修改副本不会影响Entity。</p>
+ * <p>System应通过{@link EcsSystem#forEachMatchChunk(top.kgame.lib.ecs.core.EntityGroup.ChunkConsumer)}遍历，
+ * 使用{@link top.kgame.lib.ecs.core.StructField}直接读写{@link top.kgame.lib.ecs.core.ArchetypeChunk#getStructColumn(int)}中的数据。
+ * EcsUpdateSystemOne..Five、EcsInitializeSystem、EcsDestroySystem、EcsUpdateSystemExcludeOne按组件对象匹配，泛型参数不能使用堆外组件，初始化时抛出IllegalArgumentException。</p>
+ */
+public interface EcsStructComponent extends EcsComponent {
+}
@@ -1,16 +1,21 @@
 package top.kgame.lib.ecs;
 
 import top.kgame.lib.ecs.annotation.AlwaysUpdate;
+import top.kgame.lib.ecs.annotation.ParallelChunkUpdate;
 import top.kgame.lib.ecs.annotation.UpdateIntervalTime;
 import top.kgame.lib.ecs.command.EcsCommand;
 import top.kgame.lib.ecs.command.EcsCommandScope;
 import top.kgame.lib.ecs.command.EntityCommandBuffer;
+import top.kgame.lib.ecs.core.ComponentMatchParam;
+import top.kgame.lib.ecs.core.ComponentTypeMask;
 import top.kgame.lib.ecs.core.ComponentTypeQuery;
 import top.kgame.lib.ecs.core.EcsSystemManager;
 import top.kgame.lib.ecs.core.EntityGroup;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public abstract class EcsSystem implements EcsCleanable {
     private EcsWorld ecsWorld;
@@ -22,23 +27,94 @@ public abstract class EcsSystem implements EcsCleanable {
     private boolean destroyed = false;
     private EntityGroup entityGroup;
     private long updateInterval = 0;
+    //首次更新相对于第一次调度的延迟
+    private long updatePhase = 0;
     private long nextUpdateTime = Long.MIN_VALUE;
+    //声明的组件访问，未声明时不参与并行调度
+    private boolean componentAccessDeclared = false;
+    private ComponentTypeMask readAccessMask = ComponentTypeMask.EMPTY;
+    private ComponentTypeMask writeAccessMask = ComponentTypeMask.EMPTY;
+    //并行执行期间添加的SYSTEM_GROUP/WORLD级命令，执行完成后按System顺序转发
+    private final EntityCommandBuffer parallelGroupCommands = new EntityCommandBuffer();
+    private final EntityCommandBuffer parallelWorldCommands = new EntityCommandBuffer();
+    //按存储块并行遍历时每个批次的存储块数量，0表示不并行遍历
+    private int chunksPerBatch = 0;
+    //并行遍历期间的SYSTEM_GROUP/WORLD级命令，按批次序号合并后转发
+    private final EntityCommandBuffer chunkGroupCommands = new EntityCommandBuffer();
+    private final EntityCommandBuffer chunkWorldCommands = new EntityCommandBuffer();
+    //并行遍历期间当前线程正在执行的批次序号
+    private final ThreadLocal<ChunkBatch> currentChunkBatch = ThreadLocal.withInitial(ChunkBatch::new);
+
+    private static final class ChunkBatch {
+        private int index = -1;
+    }
 
     public void tryUpdate() {
-        if (ecsWorld.getCurrentTime() >= nextUpdateTime) {
-            if (shouldRunSystem()) {
-                if (!started) {
-                    started = true;
-                    onStart();
-                }
-                onUpdate();
-                waitUpdateCommand.playBack();
-            } else if (started) {
-                started = false;
-                onStop();
+        if (updateSystem()) {
+            waitUpdateCommand.playBack();
+        }
+    }
+
+    /**
+     * 由并行调度器在工作线程中调用，延迟命令需要在同批System全部执行完成后通过{@link #playBackParallelCommands()}回放
+     */
+    public void tryUpdateInParallel() {
+        updateSystem();
+    }
+
+    /**
+     * 回放并行执行期间产生的延迟命令，在调度线程中按System顺序调用
+     */
+    public void playBackParallelCommands() {
+        waitUpdateCommand.playBack();
+        parallelGroupCommands.drainTo(getCommandBuffer(EcsCommandScope.SYSTEM_GROUP));
+        parallelWorldCommands.drainTo(getCommandBuffer(EcsCommandScope.WORLD));
+    }
+
+    private boolean updateSystem() {
+        if (ecsWorld.getCurrentTime() < getNextUpdateTime()) {
+            return false;
+        }
+        boolean updated = false;
+        if (shouldRunSystem()) {
+            if (!started) {
+                started = true;
+                onStart();
             }
-            nextUpdateTime = ecsWorld.getCurrentTime() + updateInterval;
+            onUpdate();
+            updated = true;
+        } else if (started) {
+            started = false;
+            onStop();
+        }
+        nextUpdateTime = ecsWorld.getCurrentTime() + updateInterval;
+        return updated;
+    }
+
+    /**
+     * 换算为World时间（毫秒），不足1毫秒的部分向上取整
+     */
+    private static long toWorldTime(long duration, TimeUnit unit) {
+        long nanos = unit.toNanos(duration);
+        long millis = nanos / 1_000_000L;
+        return nanos % 1_000_000L == 0 ? millis : millis + 1;
+    }
+
+    /**
+     * 是否按{@link UpdateIntervalTime}间隔更新
+     */
+    boolean isIntervalUpdate() {
+        return updateInterval > 0;
+    }
+
+    /**
+     * 下次更新时间，第一次调用时按相位偏移确定首次更新时间
+     */
+    long getNextUpdateTime() {
+        if (nextUpdateTime == Long.MIN_VALUE) {
+            nextUpdateTime = ecsWorld.getCurrentTime() + updatePhase;
         }
+        return nextUpdateTime;
     }
 
     private boolean shouldRunSystem() {
@@ -62,6 +138,10 @@ public abstract class EcsSystem implements EcsCleanable {
             destroyed = true;
         }
         waitUpdateCommand.clear();
+        parallelGroupCommands.clear();
+        parallelWorldCommands.clear();
+        chunkGroupCommands.clear();
+        chunkWorldCommands.clear();
     }
 
     public void init(EcsSystemManager systemManager) {
@@ -74,7 +154,22 @@ public abstract class EcsSystem implements EcsCleanable {
         }
         UpdateIntervalTime timeIntervalAnno = this.getClass().getAnnotation(UpdateIntervalTime.class);
         if (null != timeIntervalAnno) {
-            this.updateInterval = (long) (timeIntervalAnno.interval() * 1000L);
+            if (timeIntervalAnno.time() < 0 || timeIntervalAnno.interval() < 0 || timeIntervalAnno.phase() < 0) {
+                throw new IllegalArgumentException(this.getClass().getName() + " update interval and phase must not be negative");
+            }
+            if (timeIntervalAnno.time() > 0) {
+                this.updateInterval = toWorldTime(timeIntervalAnno.time(), timeIntervalAnno.unit());
+            } else {
+                this.updateInterval = Math.round(timeIntervalAnno.interval() * 1000d);
+            }
+            this.updatePhase = toWorldTime(timeIntervalAnno.phase(), timeIntervalAnno.unit());
+        }
+        ParallelChunkUpdate parallelChunkAnno = this.getClass().getAnnotation(ParallelChunkUpdate.class);
+        if (null != parallelChunkAnno) {
+            if (parallelChunkAnno.chunksPerBatch() <= 0) {
+                throw new IllegalArgumentException(this.getClass().getName() + " chunksPerBatch must be positive");
+            }
+            this.chunksPerBatch = parallelChunkAnno.chunksPerBatch();
         }
         destroyed = false;
         onInit();
@@ -90,6 +185,43 @@ public abstract class EcsSystem implements EcsCleanable {
         }
     }
 
+    /**
+     * 声明System访问的组件，声明后在{@link top.kgame.lib.ecs.annotation.ParallelUpdate}的SystemGroup中可以与没有冲突的System并行执行
+     * <p>READ_ONLY、ANY视为读取，ALL、READ_WRITE视为修改，NONE不访问组件。</p>
+     * @param componentMatchParams System访问的组件
+     */
+    protected void configComponentAccess(Collection<ComponentMatchParam<?>> componentMatchParams) {
+        ComponentTypeMask readMask = ComponentTypeMask.EMPTY;
+        ComponentTypeMask writeMask = ComponentTypeMask.EMPTY;
+        for (ComponentMatchParam<?> param : componentMatchParams) {
+            switch (param.getAccessModeType()) {
+                case READ_ONLY, ANY -> readMask = readMask.with(param.getTypeIndex());
+                case ALL, READ_WRITE -> writeMask = writeMask.with(param.getTypeIndex());
+                case NONE -> {
+                }
+            }
+        }
+        this.readAccessMask = readMask;
+        this.writeAccessMask = writeMask;
+        this.componentAccessDeclared = true;
+    }
+
+    public boolean isComponentAccessDeclared() {
+        return componentAccessDeclared;
+    }
+
+    /**
+     * @return 两个System访问的组件是否存在读写冲突，未声明组件访问的System与任何System冲突
+     */
+    public boolean isComponentAccessConflict(EcsSystem other) {
+        if (!componentAccessDeclared || !other.componentAccessDeclared) {
+            return true;
+        }
+        return writeAccessMask.intersects(other.writeAccessMask)
+                || writeAccessMask.intersects(other.readAccessMask)
+                || readAccessMask.intersects(other.writeAccessMask);
+    }
+
     protected Collection<Entity> getAllMatchEntity() {
         if (entityGroup == null) {
             return Collections.emptyList();
@@ -97,24 +229,144 @@ public abstract class EcsSystem implements EcsCleanable {
         return entityGroup.getEntityList();
     }
 
+    /**
+     * 遍历所有匹配的Entity，不产生额外的集合对象
+     * <p>遍历期间结构变化的处理见{@link EntityGroup#forEach(Consumer)}</p>
+     * @param action 对每个Entity执行的操作
+     */
+    protected void forEachMatchEntity(Consumer<? super Entity> action) {
+        if (entityGroup == null) {
+            return;
+        }
+        entityGroup.forEach(action);
+    }
+
+    /**
+     * 按存储块遍历所有匹配的Entity，适合需要按列批量访问组件的System
+     * <p>遍历范围见{@link EntityGroup#forEachChunk(EntityGroup.ChunkConsumer)}</p>
+     * <p>标记了{@link ParallelChunkUpdate}时按批次并行遍历，见{@link EntityGroup#forEachChunkParallel}</p>
+     * @param action 对每个存储块执行的操作
+     */
+    protected void forEachMatchChunk(EntityGroup.ChunkConsumer action) {
+        if (entityGroup == null) {
+            return;
+        }
+        if (chunksPerBatch > 0) {
+            forEachMatchChunkParallel(action);
+        } else {
+            entityGroup.forEachChunk(action);
+        }
+    }
+
+    private void forEachMatchChunkParallel(EntityGroup.ChunkConsumer action) {
+        try {
+            entityGroup.forEachChunkParallel(ecsWorld.getParallelExecutor(), chunksPerBatch, batch -> (chunk, rowCount) -> {
+                ChunkBatch chunkBatch = currentChunkBatch.get();
+                chunkBatch.index = batch;
+                try {
+                    action.accept(chunk, rowCount);
+                } finally {
+                    chunkBatch.index = -1;
+                }
+            });
+        } finally {
+            //各批次的命令按批次序号合并，与顺序遍历时的命令顺序一致
+            waitUpdateCommand.mergeConcurrentCommands();
+            chunkGroupCommands.drainTo(getCommandBuffer(EcsCommandScope.SYSTEM_GROUP));
+            chunkWorldCommands.drainTo(getCommandBuffer(EcsCommandScope.WORLD));
+        }
+    }
+
     public EcsWorld getWorld() {
         return ecsWorld;
     }
 
     public void addDelayCommand(EcsCommand command, EcsCommandScope level) {
-        switch (level) {
-            case SYSTEM -> this.waitUpdateCommand.addCommand(command);
+        int batch = getCurrentChunkBatch();
+        if (batch >= 0) {
+            getChunkCommandBuffer(level).addCommand(batch, command);
+        } else {
+            getCommandBuffer(level).addCommand(command);
+        }
+    }
+
+    /**
+     * 延迟添加组件，与{@link top.kgame.lib.ecs.command.SystemCommandAddComponent}效果相同，记录时不创建命令对象
+     */
+    public void addComponentDelay(Entity entity, EcsComponent component, EcsCommandScope level) {
+        int batch = getCurrentChunkBatch();
+        if (batch >= 0) {
+            getChunkCommandBuffer(level).addComponent(batch, entity, component);
+        } else {
+            getCommandBuffer(level).addComponent(entity, component);
+        }
+    }
+
+    /**
+     * 延迟移除组件，与{@link top.kgame.lib.ecs.command.SystemCommandRemoveComponent}效果相同，记录时不创建命令对象
+     */
+    public void removeComponentDelay(Entity entity, Class<? extends EcsComponent> componentCls, EcsCommandScope level) {
+        int batch = getCurrentChunkBatch();
+        if (batch >= 0) {
+            getChunkCommandBuffer(level).removeComponent(batch, entity, componentCls);
+        } else {
+            getCommandBuffer(level).removeComponent(entity, componentCls);
+        }
+    }
+
+    /**
+     * 延迟创建Entity，与{@link top.kgame.lib.ecs.command.SystemCommandCreateEntity}效果相同，记录时不创建命令对象
+     */
+    public void createEntityDelay(int typeId, Consumer<Entity> successCallback, EcsCommandScope level) {
+        int batch = getCurrentChunkBatch();
+        if (batch >= 0) {
+            getChunkCommandBuffer(level).createEntity(batch, ecsWorld, typeId, successCallback);
+        } else {
+            getCommandBuffer(level).createEntity(ecsWorld, typeId, successCallback);
+        }
+    }
+
+    /**
+     * 延迟销毁Entity，与{@link top.kgame.lib.ecs.command.SystemCommandDestroyEntity}效果相同，记录时不创建命令对象
+     */
+    public void destroyEntityDelay(Entity entity, EcsCommandScope level) {
+        int batch = getCurrentChunkBatch();
+        if (batch >= 0) {
+            getChunkCommandBuffer(level).destroyEntity(batch, ecsWorld, entity);
+        } else {
+            getCommandBuffer(level).destroyEntity(ecsWorld, entity);
+        }
+    }
+
+    /**
+     * @return 当前线程正在并行遍历的批次序号，不在并行遍历中时返回-1
+     */
+    private int getCurrentChunkBatch() {
+        return chunksPerBatch > 0 ? currentChunkBatch.get().index : -1;
+    }
+
+    private EntityCommandBuffer getChunkCommandBuffer(EcsCommandScope level) {
+        return switch (level) {
+            case SYSTEM -> waitUpdateCommand;
+            case SYSTEM_GROUP -> chunkGroupCommands;
+            case WORLD -> chunkWorldCommands;
+        };
+    }
+
+    private EntityCommandBuffer getCommandBuffer(EcsCommandScope level) {
+        if (level != EcsCommandScope.SYSTEM && ecsWorld.isParallelUpdating()) {
+            return level == EcsCommandScope.SYSTEM_GROUP ? parallelGroupCommands : parallelWorldCommands;
+        }
+        return switch (level) {
+            case SYSTEM -> waitUpdateCommand;
             case SYSTEM_GROUP -> {
-                if (this instanceof EcsSystemGroup) {
-                    this.waitUpdateCommand.addCommand(command);
-                } else if (this == ecsWorld.getCurrentSystemGroupClass()){
-                    this.waitUpdateCommand.addCommand(command);
-                } else {
-                    ecsWorld.getCurrentSystemGroupClass().addDelayCommand(command, level);
+                if (this instanceof EcsSystemGroup || this == ecsWorld.getCurrentSystemGroupClass()) {
+                    yield waitUpdateCommand;
                 }
+                yield ecsWorld.getCurrentSystemGroupClass().getCommandBuffer(level);
             }
-            case WORLD -> ecsWorld.addDelayCommand(command);
-        }
+            case WORLD -> ecsWorld.getDelayCommandBuffer();
+        };
     }
 
     @Override
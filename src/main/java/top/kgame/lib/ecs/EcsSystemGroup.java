@@ -3,10 +3,12 @@ package top.kgame.lib.ecs;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import top.kgame.lib.ecs.annotation.AlwaysUpdate;
+import top.kgame.lib.ecs.annotation.ParallelUpdate;
+import top.kgame.lib.ecs.core.ParallelSystemScheduler;
 import top.kgame.lib.ecs.core.SortableSystemList;
+import top.kgame.lib.ecs.core.TimingWheel;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @AlwaysUpdate
 public abstract class EcsSystemGroup extends EcsSystem {
@@ -14,14 +16,27 @@ public abstract class EcsSystemGroup extends EcsSystem {
 
     private final SortableSystemList sortableSystemList = new SortableSystemList();
     protected final List<EcsSystem> systemsToRemove = new ArrayList<>();
+    //标记了ParallelUpdate时使用
+    private ParallelSystemScheduler parallelScheduler;
+    //顺序执行时，每次都需要更新的System按排序执行，间隔更新的System放入时间轮，到期时按排序插入执行
+    private int builtSortVersion = -1;
+    private EcsSystem[] everyTickSystems = new EcsSystem[0];
+    private int[] everyTickPositions = new int[0];
+    private final Map<EcsSystem, Integer> systemPositions = new IdentityHashMap<>();
+    private final Set<EcsSystem> scheduledSystems = Collections.newSetFromMap(new IdentityHashMap<>());
+    private TimingWheel<EcsSystem> intervalWheel;
+    private final List<EcsSystem> dueSystems = new ArrayList<>();
+    private final Comparator<EcsSystem> positionOrder = Comparator.comparingInt(systemPositions::get);
 
     @Override
     public void onInit() {
         for (Class<? extends EcsSystem> childSystemClass : super.ecsSystemManager.getSystemInGroup(this)) {
             addSystem(childSystemClass);
         }
-        sortableSystemList.tryReorderSystem();
-        logger.info("{} order: {}", this.getClass().getSimpleName(), sortableSystemList);
+        super.ecsSystemManager.sortSystemList(this.getClass(), sortableSystemList);
+        if (this.getClass().isAnnotationPresent(ParallelUpdate.class)) {
+            parallelScheduler = new ParallelSystemScheduler(sortableSystemList, super.ecsSystemManager.getEntityManager());
+        }
     }
 
     private void addSystem(Class<? extends EcsSystem> childSystemClass) {
@@ -39,12 +54,79 @@ public abstract class EcsSystemGroup extends EcsSystem {
 
     @Override
     protected void onUpdate() {
-        for (EcsSystem system : sortableSystemList.getSortedSystem()) {
-            system.tryUpdate();
+        if (parallelScheduler != null) {
+            parallelScheduler.update(getWorld().getParallelExecutor());
+        } else {
+            updateInOrder();
         }
         destroyRemovedSystem();
     }
 
+    private void updateInOrder() {
+        Collection<EcsSystem> sortedSystems = sortableSystemList.getSortedSystem();
+        long now = getWorld().getCurrentTime();
+        if (intervalWheel == null) {
+            intervalWheel = new TimingWheel<>(now);
+        }
+        dueSystems.clear();
+        if (builtSortVersion != sortableSystemList.getSortVersion()) {
+            buildUpdateList(sortedSystems, now);
+            builtSortVersion = sortableSystemList.getSortVersion();
+        }
+        intervalWheel.advance(now, this::collectDueSystem);
+        if (dueSystems.size() > 1) {
+            dueSystems.sort(positionOrder);
+        }
+        int dueIndex = 0;
+        for (int i = 0; i < everyTickSystems.length; i++) {
+            while (dueIndex < dueSystems.size() && systemPositions.get(dueSystems.get(dueIndex)) < everyTickPositions[i]) {
+                updateIntervalSystem(dueSystems.get(dueIndex++));
+            }
+            everyTickSystems[i].tryUpdate();
+        }
+        while (dueIndex < dueSystems.size()) {
+            updateIntervalSystem(dueSystems.get(dueIndex++));
+        }
+    }
+
+    private void buildUpdateList(Collection<EcsSystem> sortedSystems, long now) {
+        systemPositions.clear();
+        List<EcsSystem> systems = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        int position = 0;
+        for (EcsSystem system : sortedSystems) {
+            systemPositions.put(system, position);
+            if (!system.isIntervalUpdate()) {
+                systems.add(system);
+                positions.add(position);
+            } else if (scheduledSystems.add(system)) {
+                long nextUpdateTime = system.getNextUpdateTime();
+                if (nextUpdateTime <= now) {
+                    dueSystems.add(system);
+                } else {
+                    intervalWheel.add(system, nextUpdateTime);
+                }
+            }
+            position++;
+        }
+        everyTickSystems = systems.toArray(new EcsSystem[0]);
+        everyTickPositions = positions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void collectDueSystem(EcsSystem system) {
+        //已经移除的System不再放回时间轮
+        if (systemPositions.containsKey(system)) {
+            dueSystems.add(system);
+        } else {
+            scheduledSystems.remove(system);
+        }
+    }
+
+    private void updateIntervalSystem(EcsSystem system) {
+        system.tryUpdate();
+        intervalWheel.add(system, system.getNextUpdateTime());
+    }
+
     private void destroyRemovedSystem() {
         if (!systemsToRemove.isEmpty()) {
             for(EcsSystem system : systemsToRemove) {
@@ -59,5 +141,12 @@ public abstract class EcsSystemGroup extends EcsSystem {
     protected void onDestroy() {
         destroyRemovedSystem();
         sortableSystemList.clean();
+        builtSortVersion = -1;
+        everyTickSystems = new EcsSystem[0];
+        everyTickPositions = new int[0];
+        systemPositions.clear();
+        scheduledSystems.clear();
+        intervalWheel = null;
+        dueSystems.clear();
     }
 }
@@ -11,9 +11,14 @@ import top.kgame.lib.ecs.extensions.entity.EntityFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 /**
  * 非线程安全，只能在单线程使用
+ * <p>标记了{@link top.kgame.lib.ecs.annotation.ParallelUpdate}的SystemGroup会在{@link #getParallelExecutor()}中并行执行子System，
+ * 由调用update的线程等待执行完成。</p>
  */
 public class EcsWorld{
     private static final Logger logger = LogManager.getLogger(EcsWorld.class);
@@ -31,15 +36,29 @@ public class EcsWorld{
     private EntityCommandBuffer waitUpdateCommand;
 
     private Object context;
+    private ForkJoinPool parallelExecutor = ForkJoinPool.commonPool();
 
     EntityGroup getOrCreateEntityGroup(ComponentTypeQuery componentTypes) {
         return this.entityManager.getOrCreateEntityGroup(componentTypes);
     }
 
+    /**
+     * 添加World级延迟命令，在本次update的所有System执行完成后执行
+     * @throws IllegalStateException System并行执行期间抛出，并行执行的System需要改用
+     * {@link EcsSystem#addDelayCommand(EcsCommand, top.kgame.lib.ecs.command.EcsCommandScope)}
+     */
     public void addDelayCommand(EcsCommand command) {
+        if (isParallelUpdating()) {
+            throw new IllegalStateException("EcsWorld addDelayCommand is not allowed during parallel update, " +
+                    "use EcsSystem.addDelayCommand with EcsCommandScope.WORLD instead");
+        }
         waitUpdateCommand.addCommand(command);
     }
 
+    EntityCommandBuffer getDelayCommandBuffer() {
+        return waitUpdateCommand;
+    }
+
     private enum State {
         INIT,
         WAIT_RUNNING,
@@ -55,6 +74,7 @@ public class EcsWorld{
      * 生成EcsWorld实例
      * @param packageName 需要扫描的包名
      * @return EcsWorld实例
+     * @see EcsWorldTemplate 需要创建大量相同配置的World时使用
      */
     public static EcsWorld generateInstance(String packageName) {
         EcsWorld ecsWorld = new EcsWorld();
@@ -63,13 +83,33 @@ public class EcsWorld{
     }
 
     void init(String packageName) {
-        ecsClassScanner = EcsClassScanner.getInstance(packageName);
+        init(EcsClassScanner.getInstance(packageName), null);
+    }
+
+    /**
+     * @param template 不为null时使用模板中的System排序结果，并预先创建模板中的EntityGroup
+     */
+    void init(EcsClassScanner ecsClassScanner, EcsWorldTemplate template) {
+        this.ecsClassScanner = ecsClassScanner;
         entityManager.init(ecsClassScanner);
-        systemManager.init(ecsClassScanner);
+        if (template == null) {
+            systemManager.init(ecsClassScanner, entityManager);
+        } else {
+            entityManager.registerEntityGroups(template.getEntityGroupQueries());
+            systemManager.init(ecsClassScanner, entityManager, template.getSystemOrders());
+        }
         state = State.WAIT_RUNNING;
         waitUpdateCommand = new EntityCommandBuffer();
     }
 
+    Map<Class<?>, List<Class<? extends EcsSystem>>> getSystemOrders() {
+        return systemManager.getSystemOrders();
+    }
+
+    List<ComponentTypeQuery> getEntityGroupQueries() {
+        return entityManager.getEntityGroupQueries();
+    }
+
     /**
      * 设置自定义上下文
      * @param context 上下文对象
@@ -123,6 +163,20 @@ public class EcsWorld{
         return entityFactory.create(this.entityManager);
     }
 
+    /**
+     * 通过EntityFactory类型ID批量创建实体，适合一次性生成大量同类型实体
+     * @param factoryTypeId EntityFactory类型ID
+     * @param count 创建数量
+     * @param initializer 每个实体创建完成后调用，可以为null
+     */
+    public void createEntities(int factoryTypeId, int count, Consumer<Entity> initializer) {
+        EntityFactory entityFactory = entityManager.getEntityFactory(factoryTypeId);
+        if (entityFactory == null) {
+            throw new IllegalArgumentException("No entity factory found for type id " + factoryTypeId);
+        }
+        entityFactory.createEntities(this.entityManager, count, initializer);
+    }
+
     // 通过工厂类创建实体
     public Entity createEntity(Class<? extends EntityFactory> klass) {
         EntityFactory entityFactory = entityManager.getEntityFactory(klass);
@@ -136,15 +190,64 @@ public class EcsWorld{
         }
     }
 
+    /**
+     * 请求销毁实体，实体在本次update的所有System执行完成后销毁
+     * <p>存在查询条件包含{@link DestroyingComponent}的EntityGroup（如EcsDestroySystem）时，实体会先添加该组件供其处理；
+     * 否则不添加组件，避免多一次archetype迁移。之后才创建的此类EntityGroup会为等待销毁的实体补充添加该组件。重复请求会被忽略。</p>
+     */
     public void requestDestroyEntity(Entity entity) {
-        entity.addComponent(DestroyingComponent.generate());
+        entityManager.checkStructuralChange();
+        if (entity.isDestroyRequested()) {
+            return;
+        }
+        if (entityManager.isDestroyingQueried()) {
+            entity.addComponent(DestroyingComponent.generate());
+        }
+        entity.markDestroyRequested();
         this.waitDestroyEntity.add(entity);
     }
 
+    /**
+     * 通过index获取Entity，index会在Entity销毁后被复用，长期持有时应使用{@link Entity#getHandle()}
+     */
     public Entity getEntity(int entityIndex) {
         return entityManager.getEntity(entityIndex);
     }
 
+    /**
+     * 通过句柄获取Entity
+     * @param entityHandle 见{@link Entity#getHandle()}
+     * @return Entity已经销毁时返回null
+     */
+    public Entity getEntity(long entityHandle) {
+        return entityManager.getEntity(entityHandle);
+    }
+
+    /**
+     * 设置并行执行System的线程池，默认为{@link ForkJoinPool#commonPool()}
+     */
+    public void setParallelExecutor(ForkJoinPool parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    public ForkJoinPool getParallelExecutor() {
+        return parallelExecutor;
+    }
+
+    /**
+     * @return 当前是否正在并行执行System
+     */
+    public boolean isParallelUpdating() {
+        return entityManager.isParallelUpdating();
+    }
+
+    /**
+     * 获取Entity和组件对象池，默认不缓存，可以通过{@link EcsObjectPool#setLimit(int, int)}开启
+     */
+    public EcsObjectPool getObjectPool() {
+        return entityManager.getObjectPool();
+    }
+
     public Collection<Entity> getAllEntity() {
         return entityManager.getAllEntity();
     }
@@ -170,9 +273,7 @@ public class EcsWorld{
         state = State.RUNNING;
         this.currentTime = now;
         systemManager.update();
-        for (Entity waitDestroyEntity : this.waitDestroyEntity) {
-            entityManager.destroyEntity(waitDestroyEntity);
-        }
+        entityManager.destroyEntities(this.waitDestroyEntity);
         this.waitDestroyEntity.clear();
         waitUpdateCommand.playBack();
         if (state == State.WAIT_DESTROY) {
@@ -0,0 +1,60 @@
+package top.kgame.lib.ecs;
+
+import top.kgame.lib.ecs.core.ComponentTypeQuery;
+import top.kgame.lib.ecs.core.EcsClassScanner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EcsWorld模板，用于快速创建大量相同配置的EcsWorld，例如每局对战一个World
+ * <p>创建模板时完整初始化一个World，记录各SystemGroup中System的排序结果和所有EntityGroup的查询条件，然后关闭该World。
+ * 通过{@link #newWorld()}创建的World跳过System依赖排序和排序日志，并在初始化System之前创建好EntityGroup。</p>
+ * <p>System持有各自World的状态，无法在World之间共享，每个World仍然会创建自己的System并调用onInit。</p>
+ * <p>线程安全，可以在多个线程中同时创建World。</p>
+ */
+public final class EcsWorldTemplate {
+    private final EcsClassScanner ecsClassScanner;
+    private final Map<Class<?>, List<Class<? extends EcsSystem>>> systemOrders;
+    private final List<ComponentTypeQuery> entityGroupQueries;
+
+    private EcsWorldTemplate(EcsClassScanner ecsClassScanner, Map<Class<?>, List<Class<? extends EcsSystem>>> systemOrders,
+                             List<ComponentTypeQuery> entityGroupQueries) {
+        this.ecsClassScanner = ecsClassScanner;
+        this.systemOrders = systemOrders;
+        this.entityGroupQueries = entityGroupQueries;
+    }
+
+    /**
+     * 生成模板，期间会创建并关闭一个World，所有System都会执行一次onInit和onDestroy
+     * @param packageName 需要扫描的包名
+     */
+    public static EcsWorldTemplate create(String packageName) {
+        EcsClassScanner ecsClassScanner = EcsClassScanner.getInstance(packageName);
+        EcsWorld prototype = new EcsWorld();
+        prototype.init(ecsClassScanner, null);
+        Map<Class<?>, List<Class<? extends EcsSystem>>> systemOrders = new HashMap<>();
+        prototype.getSystemOrders().forEach((ownerClass, sortedClasses) -> systemOrders.put(ownerClass, List.copyOf(sortedClasses)));
+        List<ComponentTypeQuery> entityGroupQueries = List.copyOf(prototype.getEntityGroupQueries());
+        prototype.close();
+        return new EcsWorldTemplate(ecsClassScanner, Map.copyOf(systemOrders), entityGroupQueries);
+    }
+
+    /**
+     * 通过模板创建EcsWorld
+     */
+    public EcsWorld newWorld() {
+        EcsWorld ecsWorld = new EcsWorld();
+        ecsWorld.init(ecsClassScanner, this);
+        return ecsWorld;
+    }
+
+    Map<Class<?>, List<Class<? extends EcsSystem>>> getSystemOrders() {
+        return systemOrders;
+    }
+
+    List<ComponentTypeQuery> getEntityGroupQueries() {
+        return entityGroupQueries;
+    }
+}
@@ -5,57 +5,162 @@ import org.apache.logging.log4j.Logger;
 import top.kgame.lib.ecs.core.EcsEntityManager;
 import top.kgame.lib.ecs.core.EntityArchetype;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 
 public class Entity implements EcsCleanable {
     private static final Logger logger = LogManager.getLogger(Entity.class);
 
+    private static final EcsComponent[] EMPTY_COMPONENTS = new EcsComponent[0];
+
     private final EcsEntityManager ecsEntityManager;
-    private final int index;
-    private final int type;
-    private final Map<Class<? extends EcsComponent>, EcsComponent> data = new HashMap<>();
+    //低32位为index，高32位为index被复用的代数
+    private long handle;
+    private int index;
+    private int type;
+    //init之前的初始组件，init之后组件存放在archetype中
+    private EcsComponent[] pendingComponents = EMPTY_COMPONENTS;
 
     private EntityArchetype archetype = EntityArchetype.EMPTY_INSTANCE;
+    private int archetypeRow = -1;
+    private boolean destroyRequested = false;
 
-    public Entity(EcsEntityManager ecsEntityManager, int index, int type) {
+    public Entity(EcsEntityManager ecsEntityManager, long handle, int type) {
         this.ecsEntityManager = ecsEntityManager;
-        this.index = index;
+        this.handle = handle;
+        this.index = (int) handle;
         this.type = type;
     }
 
-    public Entity(EcsEntityManager ecsEntityManager, int index, int type, Collection<? extends EcsComponent> components) {
+    public Entity(EcsEntityManager ecsEntityManager, long handle, int type, Collection<? extends EcsComponent> components) {
         this.ecsEntityManager = ecsEntityManager;
-        this.index = index;
+        this.handle = handle;
+        this.index = (int) handle;
+        this.type = type;
+        setPendingComponents(components);
+    }
+
+    /**
+     * 复用已销毁的Entity，仅由EcsEntityManager在开启对象池时调用
+     */
+    public void reuse(long handle, int type, Collection<? extends EcsComponent> components) {
+        this.handle = handle;
+        this.index = (int) handle;
         this.type = type;
+        setPendingComponents(components);
+    }
+
+    /**
+     * 复用已销毁的Entity，组件在{@link #init(EntityArchetype, int[], Collection)}时直接写入archetype
+     */
+    public void reuse(long handle, int type) {
+        this.handle = handle;
+        this.index = (int) handle;
+        this.type = type;
+        this.pendingComponents = EMPTY_COMPONENTS;
+    }
+
+    private void setPendingComponents(Collection<? extends EcsComponent> components) {
+        List<EcsComponent> initComponents = new ArrayList<>(components.size());
+        Set<Class<? extends EcsComponent>> initTypes = new HashSet<>();
         for (EcsComponent component : components) {
-            addComponentInstance(component);
+            if (initTypes.add(component.getClass())) {
+                initComponents.add(component);
+            }
         }
+        this.pendingComponents = initComponents.toArray(EMPTY_COMPONENTS);
     }
 
     public void init() {
-        this.archetype = ecsEntityManager.getOrCreateArchetype(data.keySet());
-        archetype.addEntity(this);
+        Set<Class<? extends EcsComponent>> types = new HashSet<>();
+        for (EcsComponent component : pendingComponents) {
+            types.add(component.getClass());
+        }
+        EntityArchetype initArchetype = ecsEntityManager.getOrCreateArchetype(types);
+        this.archetype = initArchetype;
+        initArchetype.addEntity(this);
+        for (EcsComponent component : pendingComponents) {
+            int typeIndex = ecsEntityManager.getComponentTypeIndex(component.getClass());
+            initArchetype.setComponent(archetypeRow, initArchetype.getComponentSlot(typeIndex), component);
+        }
+        this.pendingComponents = EMPTY_COMPONENTS;
+    }
+
+    /**
+     * 批量创建时使用，直接加入已确定的archetype
+     * @param initArchetype 组件类型与components完全一致的archetype
+     * @param componentSlots components中每个组件在archetype中的位置
+     * @param components 初始组件，不能包含重复类型
+     */
+    public void init(EntityArchetype initArchetype, int[] componentSlots, Collection<? extends EcsComponent> components) {
+        this.archetype = initArchetype;
+        initArchetype.addEntity(this);
+        int i = 0;
+        for (EcsComponent component : components) {
+            initArchetype.setComponent(archetypeRow, componentSlots[i++], component);
+        }
+        this.pendingComponents = EMPTY_COMPONENTS;
     }
 
-    @SuppressWarnings({"unchecked"})
     public <T extends EcsComponent> T getComponent(Class<T> componentClass) {
-        EcsComponent ecsComponent = data.get(componentClass);
-        if (null == ecsComponent) {
+        int typeIndex = ecsEntityManager.findComponentTypeIndex(componentClass);
+        if (typeIndex < 0) {
+            return null;
+        }
+        return getComponent(typeIndex);
+    }
+
+    /**
+     * 通过组件类型索引获取组件，用于热点路径避免Class哈希查找
+     * @param typeIndex 组件类型索引，见{@link EcsWorld#getComponentTypeIndex(Class)}
+     * @return 组件实例，不存在时返回null；{@link EcsStructComponent}返回的是副本
+     * @param <T> 组件类型
+     * @throws ClassCastException 当组件无法转换为指定类型时抛出异常
+     */
+    @SuppressWarnings({"unchecked"})
+    public <T extends EcsComponent> T getComponent(int typeIndex) {
+        int slot = archetype.getComponentSlot(typeIndex);
+        if (slot < 0) {
             return null;
         }
-        return (T)ecsComponent;
+        return (T) archetype.getComponent(archetypeRow, slot);
     }
 
     @Override
     public void clean() {
-        data.values().forEach(component -> {
+        if (archetypeRow >= 0) {
+            cleanComponents();
+            getArchetype().removeEntity(this);
+        }
+        pendingComponents = EMPTY_COMPONENTS;
+        archetype = EntityArchetype.EMPTY_INSTANCE;
+        destroyRequested = false;
+    }
+
+    /**
+     * 清理并回收组件，Entity仍然留在archetype中，由EcsEntityManager批量销毁时调用
+     */
+    public void cleanComponents() {
+        for (int slot = 0; slot < archetype.getComponentCount(); slot++) {
+            if (archetype.isStructSlot(slot)) {
+                continue;
+            }
+            EcsComponent component = archetype.getComponent(archetypeRow, slot);
             if (component instanceof EcsCleanable ecsCleanableComponent) {
                 ecsCleanableComponent.clean();
+                ecsEntityManager.recycleComponent(archetype.getComponentTypeIndex(slot), component);
             }
-        });
-        data.clear();
-        getArchetype().removeEntity(this);
+        }
+    }
+
+    /**
+     * @return 是否已经通过{@link EcsWorld#requestDestroyEntity(Entity)}请求销毁
+     */
+    public boolean isDestroyRequested() {
+        return destroyRequested;
+    }
+
+    void markDestroyRequested() {
+        destroyRequested = true;
     }
 
     @Override
@@ -63,12 +168,12 @@ public class Entity implements EcsCleanable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Entity entity = (Entity) o;
-        return index == entity.index;
+        return handle == entity.handle;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(index);
+        return Long.hashCode(handle);
     }
 
     @Override
@@ -78,11 +183,8 @@ public class Entity implements EcsCleanable {
         result.append("index=").append(index);
         result.append("archetype=").append(archetype);
         result.append("data=[");
-        for (EcsComponent component : data.values()) {
-            if (null == component) {
-                continue;
-            }
-            result.append(component.getClass().getSimpleName()).append(",");
+        for (Class<? extends EcsComponent> componentType : archetype.getComponentTypes()) {
+            result.append(componentType.getSimpleName()).append(",");
         }
         result.append("]");
         return result.toString();
@@ -92,51 +194,143 @@ public class Entity implements EcsCleanable {
         return archetype;
     }
 
+    /**
+     * 获取Entity在所属archetype中的位置，仅由EntityArchetype维护
+     */
+    public int getArchetypeRow() {
+        return archetypeRow;
+    }
+
+    public void setArchetypeRow(int archetypeRow) {
+        this.archetypeRow = archetypeRow;
+    }
+
+    /**
+     * 获取Entity的index，Entity销毁后index会被新的Entity复用
+     */
     public int getIndex() {
         return index;
     }
 
+    /**
+     * 获取Entity句柄，由index和代数组成，Entity销毁后不会再匹配任何Entity
+     * @see EcsWorld#getEntity(long)
+     */
+    public long getHandle() {
+        return handle;
+    }
+
     public boolean hasComponent(Class<? extends EcsComponent> klass) {
-        return data.containsKey(klass);
+        int typeIndex = ecsEntityManager.findComponentTypeIndex(klass);
+        return typeIndex >= 0 && archetype.getComponentSlot(typeIndex) >= 0;
     }
 
     public boolean addComponent(EcsComponent component) {
+        ecsEntityManager.checkStructuralChange();
         Class<? extends EcsComponent> componentClass = component.getClass();
-        if (hasComponent(componentClass)) {
+        int typeIndex = ecsEntityManager.getComponentTypeIndex(componentClass);
+        EntityArchetype oldArchetype = getArchetype();
+        if (oldArchetype.getComponentSlot(typeIndex) >= 0) {
             logger.warn("add component failed! reason: component already exists of entity:{} componentType:{}",
                     getIndex(), componentClass.getSimpleName());
             return false;
         }
 
-        EntityArchetype oldArchetype = getArchetype();
-        Set<Class<? extends EcsComponent>> newTypes = new HashSet<>(oldArchetype.getComponentTypes());
-        newTypes.add(componentClass);
-        updateArchetype(ecsEntityManager.getOrCreateArchetype(newTypes), oldArchetype);
-        data.put(component.getClass(), component);
+        EntityArchetype newArchetype = ecsEntityManager.getArchetypeWithComponent(oldArchetype, componentClass, typeIndex);
+        updateArchetype(newArchetype, oldArchetype);
+        newArchetype.setComponent(archetypeRow, newArchetype.getComponentSlot(typeIndex), component);
         return true;
     }
 
     public EcsComponent removeComponent(Class<? extends EcsComponent> componentCls) {
+        ecsEntityManager.checkStructuralChange();
+        int typeIndex = ecsEntityManager.findComponentTypeIndex(componentCls);
+        if (typeIndex < 0) {
+            return null;
+        }
+        EntityArchetype oldArchetype = getArchetype();
+        int oldSlot = oldArchetype.getComponentSlot(typeIndex);
+        if (oldSlot < 0) {
+            return null;
+        }
+        EcsComponent removed = oldArchetype.getComponent(archetypeRow, oldSlot);
+        EntityArchetype newArchetype = ecsEntityManager.getArchetypeWithoutComponent(oldArchetype, componentCls, typeIndex);
+        updateArchetype(newArchetype, oldArchetype);
+        return removed;
+    }
+
+    /**
+     * 按顺序批量添加、移除组件，结果与逐个调用{@link #addComponent(EcsComponent)}/{@link #removeComponent(Class)}相同，
+     * 但是只迁移一次archetype，同一批次中先添加后移除的组件不会产生迁移
+     * @param types 组件类型
+     * @param components 对应位置不为null时添加该组件，为null时移除该类型的组件
+     * @param count 变化数量
+     */
+    public void applyComponentChanges(Class<? extends EcsComponent>[] types, EcsComponent[] components, int count) {
+        ecsEntityManager.checkStructuralChange();
         EntityArchetype oldArchetype = getArchetype();
-        Set<Class<? extends EcsComponent>> newTypes = new HashSet<>(oldArchetype.getComponentTypes());
-        newTypes.remove(componentCls);
-        updateArchetype(ecsEntityManager.getOrCreateArchetype(newTypes), oldArchetype);
-        return data.remove(componentCls);
+        EntityArchetype newArchetype = oldArchetype;
+        for (int i = 0; i < count; i++) {
+            Class<? extends EcsComponent> componentClass = types[i];
+            if (components[i] != null) {
+                int typeIndex = ecsEntityManager.getComponentTypeIndex(componentClass);
+                if (newArchetype.getComponentSlot(typeIndex) >= 0) {
+                    logger.warn("add component failed! reason: component already exists of entity:{} componentType:{}",
+                            getIndex(), componentClass.getSimpleName());
+                    continue;
+                }
+                newArchetype = ecsEntityManager.getArchetypeWithComponent(newArchetype, componentClass, typeIndex);
+            } else {
+                int typeIndex = ecsEntityManager.findComponentTypeIndex(componentClass);
+                if (typeIndex >= 0 && newArchetype.getComponentSlot(typeIndex) >= 0) {
+                    newArchetype = ecsEntityManager.getArchetypeWithoutComponent(newArchetype, componentClass, typeIndex);
+                }
+            }
+        }
+        if (newArchetype != oldArchetype) {
+            updateArchetype(newArchetype, oldArchetype);
+        }
+        for (int i = 0; i < count; i++) {
+            if (isFirstChange(types, i)) {
+                applyFinalComponent(oldArchetype, types, components, i, count);
+            }
+        }
     }
 
-    private void addComponentInstance(EcsComponent component) {
-        if (data.containsKey(component.getClass())) {
-            return;
+    private static boolean isFirstChange(Class<? extends EcsComponent>[] types, int index) {
+        for (int i = 0; i < index; i++) {
+            if (types[i] == types[index]) {
+                return false;
+            }
         }
-        data.put(component.getClass(), component);
+        return true;
     }
 
-    private <T extends EcsComponent>  T generateComponentByDefaultConstructor(Class<T> c) {
-        try {
-            return c.getDeclaredConstructor().newInstance();
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-            throw new RuntimeException("createEntity failed! component "
-                    + c.getName() + " don't has default constructor", e);
+    /**
+     * 单独按顺序执行同一类型的变化，得到该类型最终生效的新组件并写入archetype
+     */
+    private void applyFinalComponent(EntityArchetype oldArchetype, Class<? extends EcsComponent>[] types,
+                                     EcsComponent[] components, int from, int count) {
+        Class<? extends EcsComponent> componentClass = types[from];
+        int typeIndex = ecsEntityManager.findComponentTypeIndex(componentClass);
+        boolean exists = typeIndex >= 0 && oldArchetype.getComponentSlot(typeIndex) >= 0;
+        EcsComponent finalComponent = null;
+        for (int i = from; i < count; i++) {
+            if (types[i] != componentClass) {
+                continue;
+            }
+            if (components[i] != null) {
+                if (!exists) {
+                    exists = true;
+                    finalComponent = components[i];
+                }
+            } else if (exists) {
+                exists = false;
+                finalComponent = null;
+            }
+        }
+        if (finalComponent != null) {
+            archetype.setComponent(archetypeRow, archetype.getComponentSlot(typeIndex), finalComponent);
         }
     }
 
@@ -144,9 +338,11 @@ public class Entity implements EcsCleanable {
         return type;
     }
 
+    /**
+     * 迁移到新archetype，新archetype中不存在的组件会被丢弃
+     */
     private void updateArchetype(EntityArchetype newArchetype, EntityArchetype oldArchetype) {
-        newArchetype.addEntity(this);
-        oldArchetype.removeEntity(this);
+        oldArchetype.moveEntity(this, newArchetype);
         archetype = newArchetype;
     }
 
@@ -0,0 +1,20 @@
+package top.kgame.lib.ecs.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 标记System按存储块并行遍历匹配的Entity
+ *
+ * <p>通过{@link top.kgame.lib.ecs.EcsSystem#forEachMatchChunk}遍历时（包括EcsUpdateSystemOne..Five），
+ * 匹配的存储块按{@link #chunksPerBatch()}分成多个批次，在{@link top.kgame.lib.ecs.EcsWorld#getParallelExecutor()}中同时执行。</p>
+ * <p>每个Entity的更新必须相互独立，只能修改当前Entity的组件。遍历期间不能直接创建、销毁Entity或者添加、移除组件，
+ * 需要改用EcsCommand；各批次的延迟命令在遍历完成后按批次顺序合并，与顺序遍历时的命令顺序一致。</p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ParallelChunkUpdate {
+    /**
+     * 每个批次包含的存储块数量，每个存储块最多{@link top.kgame.lib.ecs.core.EntityArchetype#CHUNK_CAPACITY}个Entity
+     */
+    int chunksPerBatch() default 1;
+}
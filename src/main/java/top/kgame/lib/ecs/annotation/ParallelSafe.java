@@ -0,0 +1,21 @@
+package top.kgame.lib.ecs.annotation;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+import java.lang.annotation.*;
+
+/**
+ * 标记System可以在{@link ParallelUpdate}的SystemGroup中与其他System并行执行
+ *
+ * <p>被标记的System更新时只能访问匹配的组件，不能直接修改Entity结构或者其他共享状态。未标记的System在调用线程中单独执行。</p>
+ * <p>EcsLogicSystem的子类（包括EcsUpdateSystemOne..Five）按匹配的组件声明访问，默认视为修改；
+ * {@link #readOnly()}中的组件视为只读，只读取同一组件的System之间没有冲突。</p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ParallelSafe {
+    /**
+     * 只读取、不修改的组件
+     */
+    Class<? extends EcsComponent>[] readOnly() default {};
+}
@@ -0,0 +1,16 @@
+package top.kgame.lib.ecs.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 标记EcsSystemGroup并行执行子System
+ *
+ * <p>标记了{@link ParallelSafe}（或者自行声明了组件访问）且访问没有冲突、也没有通过{@link UpdateBeforeSystem}/{@link UpdateAfterSystem}指定顺序的子System，
+ * 会在{@link top.kgame.lib.ecs.EcsWorld#getParallelExecutor()}中同时执行，其余子System在调用线程中单独执行。</p>
+ * <p>并行执行期间不能直接创建、销毁Entity或者添加、移除组件，需要改用EcsCommand；
+ * 同批System的延迟命令在全部执行完成后按照排序顺序回放。</p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ParallelUpdate {
+}
@@ -4,15 +4,37 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 标记系统更新间隔时间
- * 
+ *
  * <p>被此注解标记的系统将在指定时间间隔后执行更新。</p>
  * <p>未被此注解标记的系统，每次更新周期都会执行。</p>
+ * <p>World时间单位为毫秒，间隔和相位换算为毫秒时不足1毫秒的部分向上取整。</p>
+ * <p>非并行的{@link top.kgame.lib.ecs.EcsSystemGroup}中的系统放在时间轮中等待，未到期时不会被访问；
+ * 顶层系统（不属于任何SystemGroup）和{@link ParallelUpdate}分组中的系统不使用时间轮，每次更新周期仍会检查是否到期。</p>
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 public @interface UpdateIntervalTime {
-    float interval();
+    /**
+     * 更新间隔（秒），指定了{@link #time()}时忽略
+     */
+    float interval() default 0;
+
+    /**
+     * 更新间隔，单位为{@link #unit()}
+     */
+    long time() default 0;
+
+    /**
+     * {@link #time()}和{@link #phase()}的单位
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * 相位偏移，单位为{@link #unit()}。首次更新推迟到System第一次被调度之后的phase时间，用于错开相同间隔的System
+     */
+    long phase() default 0;
 }
@@ -1,22 +1,418 @@
 package top.kgame.lib.ecs.command;
 
-import java.util.LinkedList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
 
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
+/**
+ * 延迟命令缓冲
+ * <p>命令按类型编码后存放在可增长的数组中，回放后数组保留下来供下次使用。
+ * 添加/移除组件、创建/销毁Entity有专门的记录方法，记录时不需要创建{@link EcsCommand}对象。</p>
+ * <p>回放时连续的添加/移除组件命令按Entity合并，每个Entity只迁移一次archetype，先添加后移除的组件相互抵消。
+ * 记录后Entity已经被销毁（包括被对象池复用为新的Entity）时，该Entity的添加/移除组件和销毁命令被忽略。</p>
+ * <p>不带排序键的记录方法用于单线程顺序记录。</p>
+ * <p>带排序键的记录方法可以在多个线程中同时调用，每个线程写入自己的命令段，不需要加锁。
+ * 合并时按排序键升序排列，排序键相同的命令保持记录顺序，因此同一个排序键只应由一个线程记录，
+ * 这样不论线程如何分配任务，合并后的顺序都是确定的。</p>
+ */
 public class EntityCommandBuffer {
-    private final LinkedList<EcsCommand> ecsCommands = new LinkedList<>();
+    private static final Logger logger = LogManager.getLogger(EntityCommandBuffer.class);
+    private static final byte COMMAND = 0;
+    private static final byte ADD_COMPONENT = 1;
+    private static final byte REMOVE_COMPONENT = 2;
+    private static final byte CREATE_ENTITY = 3;
+    private static final byte DESTROY_ENTITY = 4;
+    //nextChangeIndex中链表结束和命令已执行的标记
+    private static final int CHANGE_END = -1;
+    private static final int CHANGE_EXECUTED = -2;
+
+    private final CommandArray commands = new CommandArray();
+    //所有线程的命令段，线程第一次并发记录时加入
+    private final Queue<CommandArray> segments = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<CommandArray> localSegment = ThreadLocal.withInitial(this::registerSegment);
+    //合并时复用的排序数组
+    private long[] mergeOrder = new long[0];
+    //回放时合并组件变化复用的数组，命令位置 -> 同一Entity的下一条命令位置
+    private int[] nextChangeIndex = new int[0];
+    //Entity index -> 本次合并中第一条命令的位置，entityChangeStamps与changeStamp相等时有效
+    private int[] entityFirstChanges = new int[0];
+    private int[] entityChangeStamps = new int[0];
+    private int changeStamp = 0;
+    @SuppressWarnings("unchecked")
+    private Class<? extends EcsComponent>[] changeTypes = (Class<? extends EcsComponent>[]) new Class<?>[16];
+    private EcsComponent[] changeComponents = new EcsComponent[16];
+
+    /**
+     * 按列存放的命令，每条命令由类型、两个引用参数、一个整数参数和记录时Entity的句柄组成
+     */
+    private static final class CommandArray {
+        private byte[] types = new byte[16];
+        private Object[] targets = new Object[16];
+        private Object[] args = new Object[16];
+        private int[] values = new int[16];
+        //组件命令和销毁命令记录时Entity的句柄
+        private long[] handles = new long[16];
+        //并发记录时的排序键
+        private int[] sortKeys = new int[16];
+        private int size = 0;
+
+        private void add(byte type, Object target, Object arg, int value, long handle, int sortKey) {
+            if (size == types.length) {
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                args = Arrays.copyOf(args, capacity);
+                values = Arrays.copyOf(values, capacity);
+                handles = Arrays.copyOf(handles, capacity);
+                sortKeys = Arrays.copyOf(sortKeys, capacity);
+            }
+            types[size] = type;
+            targets[size] = target;
+            args[size] = arg;
+            values[size] = value;
+            handles[size] = handle;
+            sortKeys[size] = sortKey;
+            size++;
+        }
+
+        private boolean isComponentChange(int index) {
+            return types[index] == ADD_COMPONENT || types[index] == REMOVE_COMPONENT;
+        }
+
+        private void copyTo(int index, CommandArray to) {
+            to.add(types[index], targets[index], args[index], values[index], handles[index], 0);
+        }
+
+        /**
+         * @return 组件命令和销毁命令的Entity是否仍是记录时的Entity，其他命令总是返回true
+         */
+        private boolean isEntityAlive(int index) {
+            Entity entity = switch (types[index]) {
+                case ADD_COMPONENT, REMOVE_COMPONENT -> (Entity) targets[index];
+                case DESTROY_ENTITY -> (Entity) args[index];
+                default -> null;
+            };
+            if (entity == null || (entity.getHandle() == handles[index] && entity.getArchetypeRow() >= 0)) {
+                return true;
+            }
+            logger.debug("skip command of destroyed entity. type:{} index:{}", types[index], entity.getIndex());
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void execute(int index) {
+            if (!isEntityAlive(index)) {
+                return;
+            }
+            switch (types[index]) {
+                case COMMAND -> ((EcsCommand) targets[index]).execute();
+                case ADD_COMPONENT -> ((Entity) targets[index]).addComponent((EcsComponent) args[index]);
+                case REMOVE_COMPONENT -> ((Entity) targets[index]).removeComponent((Class<? extends EcsComponent>) args[index]);
+                case CREATE_ENTITY -> {
+                    Entity entity = ((EcsWorld) targets[index]).createEntity(values[index]);
+                    ((Consumer<Entity>) args[index]).accept(entity);
+                    logger.debug("SystemCommandCreateEntity {}", entity);
+                }
+                case DESTROY_ENTITY -> ((EcsWorld) targets[index]).requestDestroyEntity((Entity) args[index]);
+                default -> throw new IllegalStateException("unknown command type " + types[index]);
+            }
+        }
+
+        /**
+         * 移除前count条命令，剩余命令前移
+         */
+        private void removeFirst(int count) {
+            int remain = size - count;
+            System.arraycopy(types, count, types, 0, remain);
+            System.arraycopy(targets, count, targets, 0, remain);
+            System.arraycopy(args, count, args, 0, remain);
+            System.arraycopy(values, count, values, 0, remain);
+            System.arraycopy(handles, count, handles, 0, remain);
+            Arrays.fill(targets, remain, size, null);
+            Arrays.fill(args, remain, size, null);
+            size = remain;
+        }
+
+        /**
+         * 移除[from, end)范围内标记为已执行的命令，剩余命令保持顺序前移
+         */
+        private void removeExecuted(int from, int end, int[] nextIndexes) {
+            int write = from;
+            for (int read = from; read < size; read++) {
+                if (read < end && nextIndexes[read] == CHANGE_EXECUTED) {
+                    continue;
+                }
+                if (write != read) {
+                    types[write] = types[read];
+                    targets[write] = targets[read];
+                    args[write] = args[read];
+                    values[write] = values[read];
+                    handles[write] = handles[read];
+                }
+                write++;
+            }
+            Arrays.fill(targets, write, size, null);
+            Arrays.fill(args, write, size, null);
+            size = write;
+        }
+
+        private void clear() {
+            Arrays.fill(targets, 0, size, null);
+            Arrays.fill(args, 0, size, null);
+            size = 0;
+        }
+    }
+
+    private CommandArray registerSegment() {
+        CommandArray segment = new CommandArray();
+        segments.add(segment);
+        return segment;
+    }
 
     public void addCommand(EcsCommand command) {
-        ecsCommands.add(command);
+        //内置的组件命令转为类型编码，回放时可以与其他组件变化合并
+        if (command.getClass() == SystemCommandAddComponent.class) {
+            SystemCommandAddComponent addCommand = (SystemCommandAddComponent) command;
+            addComponent(addCommand.entity, addCommand.component);
+        } else if (command.getClass() == SystemCommandRemoveComponent.class) {
+            SystemCommandRemoveComponent removeCommand = (SystemCommandRemoveComponent) command;
+            removeComponent(removeCommand.entity, removeCommand.componentCls);
+        } else {
+            commands.add(COMMAND, command, null, 0, 0, 0);
+        }
+    }
+
+    public void addComponent(Entity entity, EcsComponent component) {
+        commands.add(ADD_COMPONENT, entity, component, 0, entity.getHandle(), 0);
     }
 
+    public void removeComponent(Entity entity, Class<? extends EcsComponent> componentCls) {
+        commands.add(REMOVE_COMPONENT, entity, componentCls, 0, entity.getHandle(), 0);
+    }
+
+    public void createEntity(EcsWorld ecsWorld, int typeId, Consumer<Entity> successCallback) {
+        commands.add(CREATE_ENTITY, ecsWorld, successCallback, typeId, 0, 0);
+    }
+
+    public void destroyEntity(EcsWorld ecsWorld, Entity entity) {
+        commands.add(DESTROY_ENTITY, ecsWorld, entity, 0, entity.getHandle(), 0);
+    }
+
+    /**
+     * 并发记录命令，可以在多个线程中同时调用
+     * @param sortKey 合并时的排序键，例如批次序号
+     * @param command 命令
+     */
+    public void addCommand(int sortKey, EcsCommand command) {
+        if (command.getClass() == SystemCommandAddComponent.class) {
+            SystemCommandAddComponent addCommand = (SystemCommandAddComponent) command;
+            addComponent(sortKey, addCommand.entity, addCommand.component);
+        } else if (command.getClass() == SystemCommandRemoveComponent.class) {
+            SystemCommandRemoveComponent removeCommand = (SystemCommandRemoveComponent) command;
+            removeComponent(sortKey, removeCommand.entity, removeCommand.componentCls);
+        } else {
+            localSegment.get().add(COMMAND, command, null, 0, 0, sortKey);
+        }
+    }
+
+    public void addComponent(int sortKey, Entity entity, EcsComponent component) {
+        localSegment.get().add(ADD_COMPONENT, entity, component, 0, entity.getHandle(), sortKey);
+    }
+
+    public void removeComponent(int sortKey, Entity entity, Class<? extends EcsComponent> componentCls) {
+        localSegment.get().add(REMOVE_COMPONENT, entity, componentCls, 0, entity.getHandle(), sortKey);
+    }
+
+    public void createEntity(int sortKey, EcsWorld ecsWorld, int typeId, Consumer<Entity> successCallback) {
+        localSegment.get().add(CREATE_ENTITY, ecsWorld, successCallback, typeId, 0, sortKey);
+    }
+
+    public void destroyEntity(int sortKey, EcsWorld ecsWorld, Entity entity) {
+        localSegment.get().add(DESTROY_ENTITY, ecsWorld, entity, 0, entity.getHandle(), sortKey);
+    }
+
+    /**
+     * 将并发记录的命令按排序键合并到顺序命令之后，需要在所有记录线程完成后调用
+     */
+    public void mergeConcurrentCommands() {
+        int count = 0;
+        for (CommandArray segment : segments) {
+            count += segment.size;
+        }
+        if (count == 0) {
+            return;
+        }
+        if (mergeOrder.length < count) {
+            mergeOrder = new long[count];
+        }
+        //高32位为排序键，低32位为拼接后的位置，排序后排序键相同的命令保持段内顺序
+        CommandArray[] segmentArray = segments.toArray(new CommandArray[0]);
+        int index = 0;
+        for (CommandArray segment : segmentArray) {
+            for (int i = 0; i < segment.size; i++) {
+                mergeOrder[index] = ((long) segment.sortKeys[i] << 32) | index;
+                index++;
+            }
+        }
+        Arrays.sort(mergeOrder, 0, count);
+        for (int i = 0; i < count; i++) {
+            int position = (int) mergeOrder[i];
+            int segmentIndex = 0;
+            while (position >= segmentArray[segmentIndex].size) {
+                position -= segmentArray[segmentIndex].size;
+                segmentIndex++;
+            }
+            segmentArray[segmentIndex].copyTo(position, commands);
+        }
+        for (CommandArray segment : segmentArray) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * 将所有命令按顺序转移到另一个缓冲的末尾
+     */
+    public void drainTo(EntityCommandBuffer target) {
+        mergeConcurrentCommands();
+        for (int i = 0; i < commands.size; i++) {
+            commands.copyTo(i, target.commands);
+        }
+        commands.clear();
+    }
+
+    public boolean isEmpty() {
+        if (commands.size > 0) {
+            return false;
+        }
+        for (CommandArray segment : segments) {
+            if (segment.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按顺序执行所有命令，执行期间新添加的命令也会在本次执行
+     */
     public void playBack() {
-        while (!ecsCommands.isEmpty()) {
-            ecsCommands.poll().execute();
+        mergeConcurrentCommands();
+        int executed = 0;
+        try {
+            while (executed < commands.size) {
+                if (!commands.isComponentChange(executed)) {
+                    commands.execute(executed++);
+                    continue;
+                }
+                int end = executed + 1;
+                while (end < commands.size && commands.isComponentChange(end)) {
+                    end++;
+                }
+                if (end - executed == 1) {
+                    commands.execute(executed++);
+                } else {
+                    //执行失败时未执行的命令已经前移到executed之后
+                    applyComponentChanges(executed, end);
+                    executed = end;
+                }
+            }
+        } finally {
+            //执行失败时保留未执行的命令
+            if (executed == commands.size) {
+                commands.clear();
+            } else {
+                commands.removeFirst(executed);
+            }
+        }
+    }
+
+    /**
+     * 将[from, end)范围内的添加/移除组件命令按Entity分组，按Entity第一次出现的顺序执行
+     * <p>某个Entity执行失败时，该Entity的命令视为已执行，之后的Entity的命令保留在缓冲中，和逐条执行命令的结果一致。</p>
+     */
+    @SuppressWarnings("unchecked")
+    private void applyComponentChanges(int from, int end) {
+        if (nextChangeIndex.length < commands.size) {
+            nextChangeIndex = new int[commands.types.length];
+        }
+        if (++changeStamp == 0) {
+            Arrays.fill(entityChangeStamps, 0);
+            changeStamp = 1;
+        }
+        //倒序遍历，Entity上一次记录的位置就是同一Entity的下一条命令
+        for (int i = end - 1; i >= from; i--) {
+            if (!commands.isEntityAlive(i)) {
+                nextChangeIndex[i] = CHANGE_EXECUTED;
+                continue;
+            }
+            int entityIndex = ((Entity) commands.targets[i]).getIndex();
+            if (entityIndex >= entityChangeStamps.length) {
+                int capacity = Math.max(entityIndex + 1, entityChangeStamps.length * 2);
+                entityChangeStamps = Arrays.copyOf(entityChangeStamps, capacity);
+                entityFirstChanges = Arrays.copyOf(entityFirstChanges, capacity);
+            }
+            nextChangeIndex[i] = entityChangeStamps[entityIndex] == changeStamp ? entityFirstChanges[entityIndex] : CHANGE_END;
+            entityChangeStamps[entityIndex] = changeStamp;
+            entityFirstChanges[entityIndex] = i;
+        }
+        boolean success = false;
+        try {
+            for (int i = from; i < end; i++) {
+                if (nextChangeIndex[i] == CHANGE_EXECUTED) {
+                    continue;
+                }
+                Entity entity = (Entity) commands.targets[i];
+                if (entityFirstChanges[entity.getIndex()] != i) {
+                    continue;
+                }
+                int count = 0;
+                for (int index = i; index >= 0; index = nextChangeIndex[index]) {
+                    if (count == changeTypes.length) {
+                        changeTypes = Arrays.copyOf(changeTypes, count * 2);
+                        changeComponents = Arrays.copyOf(changeComponents, count * 2);
+                    }
+                    if (commands.types[index] == ADD_COMPONENT) {
+                        EcsComponent component = (EcsComponent) commands.args[index];
+                        changeTypes[count] = component.getClass();
+                        changeComponents[count] = component;
+                    } else {
+                        changeTypes[count] = (Class<? extends EcsComponent>) commands.args[index];
+                        changeComponents[count] = null;
+                    }
+                    count++;
+                }
+                //执行前标记，执行失败时该Entity的命令同样视为已执行
+                for (int index = i; index >= 0; ) {
+                    int next = nextChangeIndex[index];
+                    nextChangeIndex[index] = CHANGE_EXECUTED;
+                    index = next;
+                }
+                try {
+                    entity.applyComponentChanges(changeTypes, changeComponents, count);
+                } finally {
+                    Arrays.fill(changeTypes, 0, count, null);
+                    Arrays.fill(changeComponents, 0, count, null);
+                }
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                commands.removeExecuted(from, end, nextChangeIndex);
+            }
         }
     }
 
     public void clear() {
-        ecsCommands.clear();
+        commands.clear();
+        for (CommandArray segment : segments) {
+            segment.clear();
+        }
     }
 }
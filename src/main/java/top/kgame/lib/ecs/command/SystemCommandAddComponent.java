@@ -4,8 +4,8 @@ import top.kgame.lib.ecs.EcsComponent;
 import top.kgame.lib.ecs.Entity;
 
 public class SystemCommandAddComponent implements EcsCommand {
-    private final Entity entity;
-    private final EcsComponent component;
+    final Entity entity;
+    final EcsComponent component;
 
     public SystemCommandAddComponent(Entity entity, EcsComponent component) {
         this.entity = entity;
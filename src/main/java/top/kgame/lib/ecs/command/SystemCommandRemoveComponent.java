@@ -4,8 +4,8 @@ import top.kgame.lib.ecs.EcsComponent;
 import top.kgame.lib.ecs.Entity;
 
 public class SystemCommandRemoveComponent implements EcsCommand {
-    private final Entity entity;
-    private final Class<? extends EcsComponent> componentCls;
+    final Entity entity;
+    final Class<? extends EcsComponent> componentCls;
 
     public SystemCommandRemoveComponent(Entity entity, Class<? extends EcsComponent> componentCls) {
         this.entity = entity;
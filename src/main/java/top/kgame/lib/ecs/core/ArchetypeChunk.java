@@ -0,0 +1,90 @@
+package top.kgame.lib.ecs.core;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.Entity;
+
+import java.nio.ByteBuffer;
+
+/**
+ * archetype的定长存储块
+ * <p>每个组件类型一列，同一行的Entity和各列组件属于同一个Entity，便于System按列顺序遍历。</p>
+ * <p>{@link top.kgame.lib.ecs.EcsStructComponent}类型的列存放在堆外内存中，通过{@link #getStructColumn(int)}访问。</p>
+ * <p>块内的行数由所属archetype维护，遍历时只能访问{@link EntityGroup#forEachChunk(EntityGroup.ChunkConsumer)}传入的行数范围。</p>
+ */
+public final class ArchetypeChunk {
+    private final EntityArchetype archetype;
+    private final int baseRow;
+    private final Entity[] entities;
+    //组件位置 -> 组件列，堆外组件为null
+    private final EcsComponent[][] columns;
+    //组件位置 -> 堆外组件列，普通组件为null
+    private final ByteBuffer[] structColumns;
+
+    ArchetypeChunk(EntityArchetype archetype, int baseRow, int capacity, StructLayout[] slotLayouts) {
+        this.archetype = archetype;
+        this.baseRow = baseRow;
+        this.entities = new Entity[capacity];
+        this.columns = new EcsComponent[slotLayouts.length][];
+        this.structColumns = new ByteBuffer[slotLayouts.length];
+        for (int slot = 0; slot < slotLayouts.length; slot++) {
+            if (slotLayouts[slot] == null) {
+                columns[slot] = new EcsComponent[capacity];
+            } else {
+                structColumns[slot] = slotLayouts[slot].allocateColumn(capacity);
+            }
+        }
+    }
+
+    public EntityArchetype getArchetype() {
+        return archetype;
+    }
+
+    /**
+     * @return 块内第一行在archetype中的行号
+     */
+    public int getBaseRow() {
+        return baseRow;
+    }
+
+    public Entity[] getEntities() {
+        return entities;
+    }
+
+    /**
+     * 获取组件列
+     * @param typeIndex 组件类型索引
+     * @return 组件列，archetype不包含该组件或者组件为堆外组件时返回null
+     */
+    public EcsComponent[] getColumn(int typeIndex) {
+        int slot = archetype.getComponentSlot(typeIndex);
+        return slot < 0 ? null : columns[slot];
+    }
+
+    EcsComponent[] getColumnBySlot(int slot) {
+        return columns[slot];
+    }
+
+    /**
+     * 获取堆外组件列，配合{@link StructField}按行读写
+     * @param typeIndex 组件类型索引
+     * @return 堆外组件列，archetype不包含该组件或者组件不是堆外组件时返回null
+     */
+    public ByteBuffer getStructColumn(int typeIndex) {
+        int slot = archetype.getComponentSlot(typeIndex);
+        return slot < 0 ? null : structColumns[slot];
+    }
+
+    ByteBuffer getStructColumnBySlot(int slot) {
+        return structColumns[slot];
+    }
+
+    /**
+     * 遍历期间Entity迁出archetype后，原来的行会保留到遍历结束，此时列中的数据不再是Entity的最新组件，
+     * 需要通过{@link Entity#getComponent(int)}获取。
+     * @param row 块内行号
+     * @return 该行的Entity是否仍属于此archetype
+     */
+    public boolean isLiveRow(int row) {
+        return !archetype.hasStaleRows() || archetype.isLiveRow(baseRow + row);
+    }
+}
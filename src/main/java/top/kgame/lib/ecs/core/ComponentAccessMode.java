@@ -3,4 +3,13 @@ package top.kgame.lib.ecs.core;
 public enum ComponentAccessMode {
     ALL,
     NONE,
+    ANY,
+    /**
+     * 包含，System只读取该组件，可以与其他只读该组件的System并行执行
+     */
+    READ_ONLY,
+    /**
+     * 包含，System会修改该组件，与ALL相同
+     */
+    READ_WRITE,
 }
\ No newline at end of file
@@ -3,13 +3,14 @@ package top.kgame.lib.ecs.core;
 import top.kgame.lib.ecs.EcsComponent;
 import top.kgame.lib.ecs.EcsWorld;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 public class ComponentMatchParam<T extends EcsComponent> implements Comparable<ComponentMatchParam<?>>{
     private final ComponentAccessMode accessModeType;
     private int typeIndex = 0;
     private Class<T> type;
+    private Supplier<T> constructor;
 
     public ComponentMatchParam() {
         this(ComponentAccessMode.ALL);
@@ -28,6 +29,26 @@ public class ComponentMatchParam<T extends EcsComponent> implements Comparable<C
         return componentMatchType;
     }
 
+    /**
+     * 包含，并声明System只读取该组件
+     */
+    public static <T extends EcsComponent> ComponentMatchParam<T> readOnly(EcsWorld ecsWorld, Class<T> type) {
+        ComponentMatchParam<T> componentMatchType = new ComponentMatchParam<>(ComponentAccessMode.READ_ONLY);
+        componentMatchType.typeIndex = ecsWorld.getComponentTypeIndex(type);
+        componentMatchType.type = type;
+        return componentMatchType;
+    }
+
+    /**
+     * 包含，并声明System会修改该组件
+     */
+    public static <T extends EcsComponent> ComponentMatchParam<T> readWrite(EcsWorld ecsWorld, Class<T> type) {
+        ComponentMatchParam<T> componentMatchType = new ComponentMatchParam<>(ComponentAccessMode.READ_WRITE);
+        componentMatchType.typeIndex = ecsWorld.getComponentTypeIndex(type);
+        componentMatchType.type = type;
+        return componentMatchType;
+    }
+
     /**
      * 不包含
      */
@@ -38,6 +59,17 @@ public class ComponentMatchParam<T extends EcsComponent> implements Comparable<C
         return componentMatchType;
     }
 
+    /**
+     * 包含任意一个
+     * <p>同一查询中所有any类型的组件，至少需要包含其中一个</p>
+     */
+    public static <T extends EcsComponent> ComponentMatchParam<T> any(EcsWorld ecsWorld, Class<T> type) {
+        ComponentMatchParam<T> componentMatchType = new ComponentMatchParam<>(ComponentAccessMode.ANY);
+        componentMatchType.typeIndex = ecsWorld.getComponentTypeIndex(type);
+        componentMatchType.type = type;
+        return componentMatchType;
+    }
+
     @Override
     public int compareTo(ComponentMatchParam<?> o) {
         return Integer.compare(typeIndex, o.typeIndex);
@@ -70,12 +102,17 @@ public class ComponentMatchParam<T extends EcsComponent> implements Comparable<C
      * @throws RuntimeException 当type没有默认构造函数时抛出
      */
     public T generateComponentByDefaultConstructor() {
-        try {
-            return type.getDeclaredConstructor().newInstance();
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-            throw new RuntimeException("createEntity failed! component "
-                    + type.getName() + " don't has default constructor", e);
+        Supplier<T> supplier = constructor;
+        if (supplier == null) {
+            try {
+                supplier = EcsClassScanner.getConstructor(type);
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("createEntity failed! component "
+                        + type.getName() + " don't has default constructor", e);
+            }
+            constructor = supplier;
         }
+        return supplier.get();
     }
 
     public int getTypeIndex() {
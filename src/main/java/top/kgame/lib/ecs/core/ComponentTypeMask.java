@@ -0,0 +1,137 @@
+package top.kgame.lib.ecs.core;
+
+import java.util.Arrays;
+
+/**
+ * 组件类型位集合，每一位对应{@link EcsClassScanner}中的一个组件类型索引
+ * <p>不可变对象，可以作为HashMap的key使用</p>
+ */
+public final class ComponentTypeMask {
+    private static final long[] EMPTY_WORDS = new long[0];
+    public static final ComponentTypeMask EMPTY = new ComponentTypeMask(EMPTY_WORDS);
+
+    private final long[] words;
+    private final int hash;
+
+    private ComponentTypeMask(long[] words) {
+        this.words = words;
+        this.hash = Arrays.hashCode(words);
+    }
+
+    public static ComponentTypeMask of(int... typeIndexes) {
+        int maxIndex = -1;
+        for (int typeIndex : typeIndexes) {
+            maxIndex = Math.max(maxIndex, typeIndex);
+        }
+        if (maxIndex < 0) {
+            return EMPTY;
+        }
+        long[] words = new long[wordIndex(maxIndex) + 1];
+        for (int typeIndex : typeIndexes) {
+            words[wordIndex(typeIndex)] |= 1L << typeIndex;
+        }
+        return new ComponentTypeMask(words);
+    }
+
+    private static int wordIndex(int typeIndex) {
+        return typeIndex >>> 6;
+    }
+
+    private static ComponentTypeMask trim(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        if (length == 0) {
+            return EMPTY;
+        }
+        return new ComponentTypeMask(length == words.length ? words : Arrays.copyOf(words, length));
+    }
+
+    public ComponentTypeMask with(int typeIndex) {
+        if (contains(typeIndex)) {
+            return this;
+        }
+        long[] newWords = Arrays.copyOf(words, Math.max(words.length, wordIndex(typeIndex) + 1));
+        newWords[wordIndex(typeIndex)] |= 1L << typeIndex;
+        return new ComponentTypeMask(newWords);
+    }
+
+    public ComponentTypeMask without(int typeIndex) {
+        if (!contains(typeIndex)) {
+            return this;
+        }
+        long[] newWords = words.clone();
+        newWords[wordIndex(typeIndex)] &= ~(1L << typeIndex);
+        return trim(newWords);
+    }
+
+    public boolean contains(int typeIndex) {
+        int wordIndex = wordIndex(typeIndex);
+        return wordIndex < words.length && (words[wordIndex] & (1L << typeIndex)) != 0;
+    }
+
+    /**
+     * @return other中的所有位是否都包含在当前集合中
+     */
+    public boolean containsAll(ComponentTypeMask other) {
+        if (other.words.length > words.length) {
+            return false;
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            if ((words[i] & other.words[i]) != other.words[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 当前集合与other是否存在交集
+     */
+    public boolean intersects(ComponentTypeMask other) {
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ComponentTypeMask that = (ComponentTypeMask) o;
+        return hash == that.hash && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("ComponentTypeMask{");
+        boolean first = true;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                if (!first) {
+                    result.append(',');
+                }
+                result.append(i * Long.SIZE + bit);
+                first = false;
+                word &= word - 1;
+            }
+        }
+        return result.append('}').toString();
+    }
+}
@@ -9,17 +9,27 @@ import java.util.Objects;
 import java.util.Set;
 
 public class ComponentTypeQuery implements EcsCleanable {
+    //至少包含其中一个
     private final Set<Class<? extends EcsComponent>> any = new HashSet<>();
     //不能包含任何一个
     private final Set<Class<? extends EcsComponent>> none = new HashSet<>();
     //所有的都要包含
     private final Set<Class<? extends EcsComponent>> all = new HashSet<>();
 
+    private ComponentTypeMask anyMask = ComponentTypeMask.EMPTY;
+    private ComponentTypeMask noneMask = ComponentTypeMask.EMPTY;
+    private ComponentTypeMask allMask = ComponentTypeMask.EMPTY;
+    private boolean maskCompiled = false;
+
     @Override
     public void clean() {
         any.clear();
         none.clear();
         all.clear();
+        anyMask = ComponentTypeMask.EMPTY;
+        noneMask = ComponentTypeMask.EMPTY;
+        allMask = ComponentTypeMask.EMPTY;
+        maskCompiled = false;
     }
 
     @Override
@@ -35,6 +45,21 @@ public class ComponentTypeQuery implements EcsCleanable {
         return Objects.hash(any, none, all);
     }
 
+    /**
+     * @return 包含相同条件的新查询，编译结果一并复制
+     */
+    public ComponentTypeQuery copy() {
+        ComponentTypeQuery query = new ComponentTypeQuery();
+        query.any.addAll(any);
+        query.none.addAll(none);
+        query.all.addAll(all);
+        query.anyMask = anyMask;
+        query.noneMask = noneMask;
+        query.allMask = allMask;
+        query.maskCompiled = maskCompiled;
+        return query;
+    }
+
     public Set<Class<? extends EcsComponent>> getAny() {
         return any;
     }
@@ -49,59 +74,65 @@ public class ComponentTypeQuery implements EcsCleanable {
 
     public void addNone(Class<? extends EcsComponent> type) {
         none.add(type);
+        maskCompiled = false;
     }
 
     public void addAll(Class<? extends EcsComponent> type) {
         all.add(type);
+        maskCompiled = false;
     }
 
-    public boolean isMatchingArchetype(EntityArchetype entityArchetype) {
-        if (!checkMatchingAll(entityArchetype)) {
-            return false;
-        }
-        if (!checkMatchingNone(entityArchetype)) {
-            return false;
-        }
-        return checkMatchingAny(entityArchetype);
+    public void addAny(Class<? extends EcsComponent> type) {
+        any.add(type);
+        maskCompiled = false;
     }
 
-    private boolean checkMatchingAll(EntityArchetype entityArchetype) {
-        for (Class<? extends EcsComponent> componentMatchType : all) {
-            if (!entityArchetype.hasComponent(componentMatchType)) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * 将all/none/any集合编译为组件类型位集合，修改集合之后需要重新编译
+     * @param ecsClassScanner 提供组件类型索引
+     * @throws top.kgame.lib.ecs.exception.InvalidEcsTypeException 包含未注册的组件类型时抛出
+     */
+    public void compile(EcsClassScanner ecsClassScanner) {
+        anyMask = generateMask(ecsClassScanner, any);
+        noneMask = generateMask(ecsClassScanner, none);
+        allMask = generateMask(ecsClassScanner, all);
+        maskCompiled = true;
     }
 
-    private boolean checkMatchingNone(EntityArchetype entityArchetype) {
-        for (Class<? extends EcsComponent> componentMatchType : entityArchetype.getComponentTypes()) {
-            if (none.contains(componentMatchType)) {
-                return false;
-            }
+    private static ComponentTypeMask generateMask(EcsClassScanner ecsClassScanner, Set<Class<? extends EcsComponent>> types) {
+        int[] typeIndexes = new int[types.size()];
+        int i = 0;
+        for (Class<? extends EcsComponent> type : types) {
+            typeIndexes[i++] = ecsClassScanner.getComponentTypeIndex(type);
         }
-        return true;
+        return ComponentTypeMask.of(typeIndexes);
     }
 
-    private boolean checkMatchingAny(EntityArchetype entityArchetype) {
-        if (any.isEmpty()) {
-            return true;
+    /**
+     * 判断archetype是否满足查询条件，调用之前需要先调用{@link #compile(EcsClassScanner)}
+     * @throws IllegalStateException 查询条件未编译时抛出
+     */
+    public boolean isMatchingArchetype(EntityArchetype entityArchetype) {
+        if (!maskCompiled) {
+            throw new IllegalStateException("ComponentTypeQuery must be compiled before matching archetype");
         }
-        for (Class<? extends EcsComponent> componentMatchType : entityArchetype.getComponentTypes()) {
-            if (any.contains(componentMatchType)) {
-                return true;
-            }
+        ComponentTypeMask signature = entityArchetype.getSignature();
+        if (!signature.containsAll(allMask)) {
+            return false;
+        }
+        if (signature.intersects(noneMask)) {
+            return false;
         }
-        return false;
+        return anyMask.isEmpty() || signature.intersects(anyMask);
     }
 
     public static ComponentTypeQuery generate(Collection<ComponentMatchParam<?>> componentMatchTypes) {
         ComponentTypeQuery result = new ComponentTypeQuery();
         for (ComponentMatchParam<?> type : componentMatchTypes) {
-            if (type.getAccessModeType() == ComponentAccessMode.NONE) {
-                result.addNone(type.getType());
-            } else {
-                result.addAll(type.getType());
+            switch (type.getAccessModeType()) {
+                case NONE -> result.addNone(type.getType());
+                case ANY -> result.addAny(type.getType());
+                default -> result.addAll(type.getType());
             }
         }
         return result;
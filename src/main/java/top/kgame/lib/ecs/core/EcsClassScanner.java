@@ -14,8 +14,18 @@ import top.kgame.lib.ecs.annotation.UpdateInGroup;
 import top.kgame.lib.ecs.tools.ClassUtils;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class EcsClassScanner {
     private final Set<Class<? extends EcsSystem>> topSystemClasses = new HashSet<>();
@@ -26,6 +36,14 @@ public class EcsClassScanner {
     private int componentTypeIndex = 0;
 
     private static final Map<String, EcsClassScanner> SCANNERS = new ConcurrentHashMap<>();
+    //类型 -> 无参构造函数
+    private static final ClassValue<Supplier<?>> CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected Supplier<?> computeValue(Class<?> type) {
+            return createConstructor(type);
+        }
+    };
+
     public static EcsClassScanner getInstance(String packageName) {
         return SCANNERS.computeIfAbsent(packageName, name -> {
             EcsClassScanner newInstance = new EcsClassScanner();
@@ -35,37 +53,127 @@ public class EcsClassScanner {
         });
     }
 
+    /**
+     * 获取类型的无参构造函数，每个类型只生成一次
+     * <p>优先通过{@link LambdaMetafactory}生成直接调用构造函数的Supplier，无法访问时回退为反射调用。
+     * 构造函数抛出的异常直接抛出。</p>
+     * @throws IllegalArgumentException 类型没有无参构造函数或者无法实例化时抛出
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Supplier<T> getConstructor(Class<T> type) {
+        return (Supplier<T>) CONSTRUCTORS.get(type);
+    }
+
+    private static Supplier<?> createConstructor(Class<?> type) {
+        if (ClassUtils.isAbstract(type)) {
+            throw new IllegalArgumentException("class " + type.getName() + " is abstract");
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), constructor, MethodType.methodType(type));
+            return (Supplier<?>) callSite.getTarget().invoke();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("class " + type.getName() + " don't has default constructor", e);
+        } catch (Throwable e) {
+            return createReflectConstructor(type);
+        }
+    }
+
+    private static Supplier<?> createReflectConstructor(Class<?> type) {
+        Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("class " + type.getName() + " don't has default constructor", e);
+        }
+        if (!constructor.trySetAccessible()) {
+            throw new IllegalArgumentException("default constructor of class " + type.getName() + " is not accessible");
+        }
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
     public Set<Class<? extends EntityFactory>> getEntityFactoryClass() {
         return entityFactoryClass;
     }
 
+    /**
+     * 带有注册表的jar或目录按注册表加载，其余的jar或目录扫描加载
+     */
     private void loadPackage(String scanPackage) {
-        Set<Class<? extends EcsSystem>> updateInGroupClass = getEcsSystem(scanPackage);
+        EcsRegistry registry = EcsRegistry.getInstance(Thread.currentThread().getContextClassLoader());
+        loadRegistry(registry, scanPackage);
+        Predicate<URL> notCovered = resource -> !registry.covers(resource);
+        Set<Class<? extends EcsSystem>> updateInGroupClass = getEcsSystem(scanPackage, notCovered);
         for (Class<? extends EcsSystem> clazz : updateInGroupClass) {
             if (ClassUtils.isAbstract(clazz)) {
                 continue;
             }
             UpdateInGroup updateInGroupAnnotation = clazz.getAnnotation(UpdateInGroup.class);
-            if (updateInGroupAnnotation == null) {
-                topSystemClasses.add(clazz);
-                continue;
-            }
-            Class<? extends EcsSystemGroup> groupClass = updateInGroupAnnotation.value();
-            if (ClassUtils.isAbstract(groupClass)
-                    || !EcsSystemGroup.class.isAssignableFrom(groupClass)) {
-                throw new InvalidUpdateInGroupTypeException(clazz, groupClass);
-            }
-            groupChildTypeMap.computeIfAbsent(groupClass, item -> new HashSet<>()).add(clazz);
+            addSystemClass(clazz, updateInGroupAnnotation == null ? null : updateInGroupAnnotation.value());
         }
 
-        entityFactoryClass.addAll(getEcsEntityFactoryByAnnotation(scanPackage));
+        entityFactoryClass.addAll(getEcsEntityFactoryByAnnotation(scanPackage, notCovered));
+
+        registerComponent(EcsWorld.class.getPackage().toString(), notCovered);
+        registerComponent(scanPackage, notCovered);
+    }
 
-        registerComponent(EcsWorld.class.getPackage().toString());
-        registerComponent(scanPackage);
+    /**
+     * 按编译期生成的注册表加载包中的类型，只加载不初始化类
+     */
+    private void loadRegistry(EcsRegistry registry, String scanPackage) {
+        for (String[] system : registry.getSystems(scanPackage)) {
+            Class<? extends EcsSystem> clazz = loadClass(system[0]).asSubclass(EcsSystem.class);
+            Class<? extends EcsSystemGroup> groupClass = EcsRegistry.NO_GROUP.equals(system[1])
+                    ? null : loadClass(system[1]).asSubclass(EcsSystemGroup.class);
+            addSystemClass(clazz, groupClass);
+        }
+        for (String factory : registry.getFactories(scanPackage)) {
+            entityFactoryClass.add(checkEntityFactoryClass(loadClass(factory)));
+        }
+        for (String component : registry.getComponents(scanPackage)) {
+            registerComponentType(loadClass(component));
+        }
     }
 
-    private void registerComponent(String scanPackage) {
-        for (Class<?> clazz : ClassUtils.getClassFromParent(scanPackage, EcsComponent.class)) {
+    private static Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("class " + className + " in ecs registry not found", e);
+        }
+    }
+
+    private void addSystemClass(Class<? extends EcsSystem> clazz, Class<? extends EcsSystemGroup> groupClass) {
+        if (groupClass == null) {
+            topSystemClasses.add(clazz);
+            return;
+        }
+        if (ClassUtils.isAbstract(groupClass)
+                || !EcsSystemGroup.class.isAssignableFrom(groupClass)) {
+            throw new InvalidUpdateInGroupTypeException(clazz, groupClass);
+        }
+        groupChildTypeMap.computeIfAbsent(groupClass, item -> new HashSet<>()).add(clazz);
+    }
+
+    private void registerComponent(String scanPackage, Predicate<URL> resourceFilter) {
+        for (Class<?> clazz : ClassUtils.getClassFromParent(scanPackage, EcsComponent.class, resourceFilter)) {
             if (ClassUtils.isAbstract(clazz)) {
                 continue;
             }
@@ -73,9 +181,13 @@ public class EcsClassScanner {
         }
     }
 
-    @SuppressWarnings("unchecked")
     public Set<Class<? extends EcsSystem>> getEcsSystem(String scanPackage) {
-        Set<Class<?>> classes = ClassUtils.getClassFromParent(scanPackage, EcsSystem.class);
+        return getEcsSystem(scanPackage, resource -> true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Class<? extends EcsSystem>> getEcsSystem(String scanPackage, Predicate<URL> resourceFilter) {
+        Set<Class<?>> classes = ClassUtils.getClassFromParent(scanPackage, EcsSystem.class, resourceFilter);
         Set<Class<? extends EcsSystem>> ecsSystemClass = new HashSet<>();
         for (Class<?> klass : classes) {
             if (!ClassUtils.isAbstract(klass)) {
@@ -97,25 +209,35 @@ public class EcsClassScanner {
         return ecsSystemClass;
     }
 
-    @SuppressWarnings("unchecked")
     public Set<Class<? extends EntityFactory>> getEcsEntityFactoryByAnnotation(String scanPackage) {
-        Set<Class<?>> classes = ClassUtils.getClassByAnnotation(scanPackage, EntityFactoryAttribute.class);
+        return getEcsEntityFactoryByAnnotation(scanPackage, resource -> true);
+    }
+
+    private Set<Class<? extends EntityFactory>> getEcsEntityFactoryByAnnotation(String scanPackage, Predicate<URL> resourceFilter) {
+        Set<Class<?>> classes = ClassUtils.getClassByAnnotation(scanPackage, EntityFactoryAttribute.class, resourceFilter);
         Set<Class<? extends EntityFactory>> ecsSystemClass = new HashSet<>();
         for (Class<?> klass : classes) {
-            if (!ClassUtils.isAbstract(klass) && EntityFactory.class.isAssignableFrom(klass)) {
-                ecsSystemClass.add((Class<? extends EntityFactory>) klass);
-            } else {
-                throw new InvalidEcsEntityFactoryException("class " + klass.getName() + " is not an EntityFactory but is annotated with @EntityFactoryAttribute");
-            }
+            ecsSystemClass.add(checkEntityFactoryClass(klass));
         }
         return ecsSystemClass;
     }
 
+    @SuppressWarnings("unchecked")
+    private static Class<? extends EntityFactory> checkEntityFactoryClass(Class<?> klass) {
+        if (!ClassUtils.isAbstract(klass) && EntityFactory.class.isAssignableFrom(klass)) {
+            return (Class<? extends EntityFactory>) klass;
+        }
+        throw new InvalidEcsEntityFactoryException("class " + klass.getName() + " is not an EntityFactory but is annotated with @EntityFactoryAttribute");
+    }
+
     public Set<Class<? extends EcsSystem>> getChildSystem(Class<? extends EcsSystemGroup> aClass) {
         return groupChildTypeMap.getOrDefault(aClass, Collections.emptySet());
     }
 
     private void registerComponentType(Class<?> type) {
+        if (componentTypeIndexMap.containsKey(type)) {
+            return;
+        }
         indexComponentTypeMap.put(componentTypeIndex, type);
         componentTypeIndexMap.put(type, componentTypeIndex);
         componentTypeIndex++;
@@ -129,6 +251,20 @@ public class EcsClassScanner {
         return index;
     }
 
+    /**
+     * 查询组件类型索引
+     * @param type 组件类型
+     * @return 组件类型索引，未注册的类型返回-1
+     */
+    public int findComponentTypeIndex(Class<?> type) {
+        Integer index = componentTypeIndexMap.get(type);
+        return null == index ? -1 : index;
+    }
+
+    public int getComponentTypeCount() {
+        return componentTypeIndex;
+    }
+
     public Class<?> getComponentType(int index) {
         Class<?> type = indexComponentTypeMap.get(index);
         if (null == type) {
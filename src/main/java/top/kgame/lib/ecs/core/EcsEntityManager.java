@@ -7,21 +7,39 @@ import top.kgame.lib.ecs.EcsComponent;
 import top.kgame.lib.ecs.EcsWorld;
 import top.kgame.lib.ecs.Entity;
 import top.kgame.lib.ecs.exception.InvalidEcsEntityFactoryException;
+import top.kgame.lib.ecs.extensions.component.DestroyingComponent;
 import top.kgame.lib.ecs.extensions.entity.EntityFactory;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class EcsEntityManager implements EcsCleanable {
     private static final Logger logger = LogManager.getLogger(EcsEntityManager.class);
+    private static final int INIT_SLOT_CAPACITY = 64;
 
     private final EcsWorld world;
     private final List<EntityArchetype> entityArchetypes = new ArrayList<>();
+    private final Map<ComponentTypeMask, EntityArchetype> archetypeIndex = new HashMap<>();
     private final List<EntityGroup> systemNeedEntityGroups = new ArrayList<>();
-    private final Map<Integer, Entity> entityIndex = new HashMap<>();
     private final EntityFactoryIndex entityFactoryIndex = new EntityFactoryIndex();
+    private final Collection<Entity> allEntityView = new AllEntityView();
+    private final EcsObjectPool objectPool = new EcsObjectPool();
 
+    //index -> Entity，index 0保留不用
+    private Entity[] entitySlots = new Entity[INIT_SLOT_CAPACITY];
+    //index -> 当前代数，Entity销毁时加1
+    private int[] slotGenerations = new int[INIT_SLOT_CAPACITY];
+    //已销毁Entity释放的index，后进先出复用
+    private int[] freeSlots = new int[INIT_SLOT_CAPACITY];
+    private int freeSlotCount = 0;
     private int entitiesNextIndex = 1;
+    private int entityCount = 0;
+    private EcsClassScanner ecsClassScanner;
+    //System并行执行期间禁止修改Entity结构
+    private boolean parallelUpdating = false;
+    //是否存在查询条件包含DestroyingComponent的EntityGroup，不存在时请求销毁的Entity不添加该组件
+    private boolean destroyingQueried = false;
 
     public EcsEntityManager(final EcsWorld world) {
         this.world = world;
@@ -30,29 +48,85 @@ public class EcsEntityManager implements EcsCleanable {
     @Override
     public void clean() {
         entityArchetypes.clear();
+        archetypeIndex.clear();
         systemNeedEntityGroups.clear();
-        entityIndex.clear();
+        entitySlots = new Entity[INIT_SLOT_CAPACITY];
+        slotGenerations = new int[INIT_SLOT_CAPACITY];
+        freeSlots = new int[INIT_SLOT_CAPACITY];
+        freeSlotCount = 0;
+        entitiesNextIndex = 1;
+        entityCount = 0;
+        destroyingQueried = false;
         entityFactoryIndex.clear();
+        objectPool.clean();
     }
 
     public void init(EcsClassScanner ecsClassScanner) {
+        this.ecsClassScanner = ecsClassScanner;
         ecsClassScanner.getEntityFactoryClass().forEach(entityFactoryClass -> {
+            EntityFactory entityFactory;
             try {
-                EntityFactory entityFactory = entityFactoryClass.getDeclaredConstructor().newInstance();
-                entityFactoryIndex.registerEntityFactory(entityFactory);
-            } catch (InstantiationException | IllegalAccessException | InvocationTargetException |
-                     NoSuchMethodException e) {
+                entityFactory = EcsClassScanner.getConstructor(entityFactoryClass).get();
+            } catch (IllegalArgumentException e) {
                 throw new RuntimeException(e);
             }
+            entityFactoryIndex.registerEntityFactory(entityFactory);
         });
     }
 
     public Entity getEntity(int index) {
-        return entityIndex.get(index);
+        return index > 0 && index < entitiesNextIndex ? entitySlots[index] : null;
     }
 
+    public Entity getEntity(long handle) {
+        int index = (int) handle;
+        if (index <= 0 || index >= entitiesNextIndex || slotGenerations[index] != (int) (handle >>> 32)) {
+            return null;
+        }
+        return entitySlots[index];
+    }
+
+    /**
+     * @return 所有Entity的只读视图
+     */
     public Collection<Entity> getAllEntity() {
-        return entityIndex.values();
+        return allEntityView;
+    }
+
+    private class AllEntityView extends AbstractCollection<Entity> {
+        @Override
+        public Iterator<Entity> iterator() {
+            return new Iterator<>() {
+                private int nextIndex = findNext(1);
+
+                private int findNext(int index) {
+                    while (index < entitiesNextIndex && entitySlots[index] == null) {
+                        index++;
+                    }
+                    return index;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return nextIndex < entitiesNextIndex;
+                }
+
+                @Override
+                public Entity next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Entity entity = entitySlots[nextIndex];
+                    nextIndex = findNext(nextIndex + 1);
+                    return entity;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return entityCount;
+        }
     }
 
     private static class EntityFactoryIndex {
@@ -100,50 +174,252 @@ public class EcsEntityManager implements EcsCleanable {
     }
 
     public Entity createEntityInstance(int typeId, Collection<? extends EcsComponent> components) {
-        Entity entity = new Entity(this, entitiesNextIndex++, typeId, components);
+        checkStructuralChange();
+        int index = allocateIndex();
+        long handle = ((long) slotGenerations[index] << 32) | index;
+        Entity entity = objectPool.obtainEntity();
+        if (entity == null) {
+            entity = new Entity(this, handle, typeId, components);
+        } else {
+            entity.reuse(handle, typeId, components);
+        }
         entity.init();
-        entityIndex.put(entity.getIndex(), entity);
+        entitySlots[index] = entity;
+        entityCount++;
         return entity;
     }
 
+    /**
+     * 批量创建同一类型的Entity，组件类型相同的Entity直接加入第一次解析出的archetype
+     * @param typeId Entity类型
+     * @param count 创建数量
+     * @param componentSupplier 每次调用返回一个Entity的初始组件
+     * @param initializer 每个Entity创建完成后调用，可以为null
+     */
+    public void createEntityInstances(int typeId, int count, Supplier<? extends Collection<? extends EcsComponent>> componentSupplier,
+                                      Consumer<Entity> initializer) {
+        checkStructuralChange();
+        if (count <= 0) {
+            return;
+        }
+        ensureSlotCapacity(count);
+        EntityArchetype batchArchetype = null;
+        Class<? extends EcsComponent>[] batchTypes = null;
+        int[] batchSlots = null;
+        for (int i = 0; i < count; i++) {
+            Collection<? extends EcsComponent> components = componentSupplier.get();
+            if (i == 0) {
+                //以第一个Entity的组件类型解析archetype，存在重复类型时全部按单个创建处理
+                batchTypes = resolveBatchTypes(components);
+                if (batchTypes != null) {
+                    batchArchetype = getOrCreateArchetype(Arrays.asList(batchTypes));
+                    batchSlots = new int[batchTypes.length];
+                    for (int slot = 0; slot < batchTypes.length; slot++) {
+                        batchSlots[slot] = batchArchetype.getComponentSlot(getComponentTypeIndex(batchTypes[slot]));
+                    }
+                    batchArchetype.ensureCapacity(count);
+                }
+            }
+            int index = allocateIndex();
+            long handle = ((long) slotGenerations[index] << 32) | index;
+            Entity entity;
+            if (batchArchetype != null && isBatchTypes(components, batchTypes)) {
+                entity = objectPool.obtainEntity();
+                if (entity == null) {
+                    entity = new Entity(this, handle, typeId);
+                } else {
+                    entity.reuse(handle, typeId);
+                }
+                entity.init(batchArchetype, batchSlots, components);
+            } else {
+                entity = objectPool.obtainEntity();
+                if (entity == null) {
+                    entity = new Entity(this, handle, typeId, components);
+                } else {
+                    entity.reuse(handle, typeId, components);
+                }
+                entity.init();
+            }
+            entitySlots[index] = entity;
+            entityCount++;
+            if (initializer != null) {
+                initializer.accept(entity);
+            }
+        }
+    }
+
+    /**
+     * @return 组件类型按顺序排列的数组，存在重复类型时返回null
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<? extends EcsComponent>[] resolveBatchTypes(Collection<? extends EcsComponent> components) {
+        Class<? extends EcsComponent>[] types = (Class<? extends EcsComponent>[]) new Class<?>[components.size()];
+        int i = 0;
+        for (EcsComponent component : components) {
+            Class<? extends EcsComponent> type = component.getClass();
+            for (int j = 0; j < i; j++) {
+                if (types[j] == type) {
+                    return null;
+                }
+            }
+            types[i++] = type;
+        }
+        return types;
+    }
+
+    private static boolean isBatchTypes(Collection<? extends EcsComponent> components, Class<? extends EcsComponent>[] batchTypes) {
+        if (components.size() != batchTypes.length) {
+            return false;
+        }
+        int i = 0;
+        for (EcsComponent component : components) {
+            if (component.getClass() != batchTypes[i++]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 保证之后分配count个index时不需要扩容
+     */
+    private void ensureSlotCapacity(int count) {
+        int required = entitiesNextIndex + Math.max(0, count - freeSlotCount);
+        if (required > entitySlots.length) {
+            int newCapacity = entitySlots.length;
+            while (newCapacity < required) {
+                newCapacity <<= 1;
+            }
+            entitySlots = Arrays.copyOf(entitySlots, newCapacity);
+            slotGenerations = Arrays.copyOf(slotGenerations, newCapacity);
+        }
+    }
+
+    private int allocateIndex() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        int index = entitiesNextIndex++;
+        if (index == entitySlots.length) {
+            int newCapacity = entitySlots.length << 1;
+            entitySlots = Arrays.copyOf(entitySlots, newCapacity);
+            slotGenerations = Arrays.copyOf(slotGenerations, newCapacity);
+        }
+        return index;
+    }
+
+    private void releaseIndex(int index) {
+        entitySlots[index] = null;
+        slotGenerations[index]++;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount << 1);
+        }
+        freeSlots[freeSlotCount++] = index;
+        entityCount--;
+    }
+
     public EntityArchetype getOrCreateArchetype(Collection<Class<? extends EcsComponent>> types) {
-        EntityArchetype existArchetype = getExistingArchetype(types);
+        ComponentTypeMask signature = generateSignature(types);
+        EntityArchetype existArchetype = archetypeIndex.get(signature);
         if (existArchetype != null) {
             return existArchetype;
         }
         return createArchetype(types);
     }
 
-    private EntityArchetype getExistingArchetype(Collection<Class<? extends EcsComponent>> types) {
+    /**
+     * 获取在source基础上添加指定组件后的archetype，结果会缓存在source上
+     */
+    public EntityArchetype getArchetypeWithComponent(EntityArchetype source, Class<? extends EcsComponent> type, int typeIndex) {
+        EntityArchetype target = source.getAddTransition(typeIndex);
+        if (target != null) {
+            return target;
+        }
+        target = archetypeIndex.get(source.getSignature().with(typeIndex));
+        if (target == null) {
+            Set<Class<? extends EcsComponent>> newTypes = new HashSet<>(source.getComponentTypes());
+            newTypes.add(type);
+            target = createArchetype(newTypes);
+        }
+        if (source != EntityArchetype.EMPTY_INSTANCE) {
+            source.setAddTransition(typeIndex, target);
+            target.setRemoveTransition(typeIndex, source);
+        }
+        return target;
+    }
+
+    /**
+     * 获取在source基础上移除指定组件后的archetype，结果会缓存在source上
+     */
+    public EntityArchetype getArchetypeWithoutComponent(EntityArchetype source, Class<? extends EcsComponent> type, int typeIndex) {
+        EntityArchetype target = source.getRemoveTransition(typeIndex);
+        if (target != null) {
+            return target;
+        }
+        target = archetypeIndex.get(source.getSignature().without(typeIndex));
+        if (target == null) {
+            Set<Class<? extends EcsComponent>> newTypes = new HashSet<>(source.getComponentTypes());
+            newTypes.remove(type);
+            target = createArchetype(newTypes);
+        }
+        if (source != EntityArchetype.EMPTY_INSTANCE) {
+            source.setRemoveTransition(typeIndex, target);
+            target.setAddTransition(typeIndex, source);
+        }
+        return target;
+    }
+
+    private ComponentTypeMask generateSignature(Collection<Class<? extends EcsComponent>> types) {
         if (null == types || types.isEmpty()) {
-            return null;
+            return ComponentTypeMask.EMPTY;
         }
-        for (EntityArchetype entityArchetype : entityArchetypes) {
-            if (entityArchetype.isSame(types)) {
-                return entityArchetype;
-            }
+        int[] typeIndexes = new int[types.size()];
+        int i = 0;
+        for (Class<? extends EcsComponent> type : types) {
+            typeIndexes[i++] = getComponentTypeIndex(type);
         }
-        return null;
+        return ComponentTypeMask.of(typeIndexes);
     }
 
     private EntityArchetype createArchetype(Collection<Class<? extends EcsComponent>> types) {
         EntityArchetype entityArchetype = new EntityArchetype();
         for (Class<? extends EcsComponent> componentMatchType : types) {
-            entityArchetype.addComponent(componentMatchType);
+            entityArchetype.addComponent(componentMatchType, getComponentTypeIndex(componentMatchType));
         }
         entityArchetypes.add(entityArchetype);
+        archetypeIndex.put(entityArchetype.getSignature(), entityArchetype);
         systemNeedEntityGroups.forEach(entityGroup -> entityGroup.addArchetypeIfMatching(entityArchetype));
         return entityArchetype;
     }
 
     private boolean notExistEntity(Entity entity) {
-        if (entitiesNextIndex < entity.getIndex()) {
-            return true;
+        return getEntity(entity.getHandle()) != entity;
+    }
+
+    /**
+     * @return 已创建的EntityGroup的查询条件副本，按创建顺序排列
+     */
+    public List<ComponentTypeQuery> getEntityGroupQueries() {
+        List<ComponentTypeQuery> queries = new ArrayList<>(systemNeedEntityGroups.size());
+        for (EntityGroup entityGroup : systemNeedEntityGroups) {
+            for (ComponentTypeQuery query : entityGroup.getRequirementQuery()) {
+                queries.add(query.copy());
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * 按查询条件预先创建EntityGroup，查询条件会被复制
+     */
+    public void registerEntityGroups(Collection<ComponentTypeQuery> queries) {
+        for (ComponentTypeQuery query : queries) {
+            getOrCreateEntityGroup(query.copy());
         }
-        return !entityIndex.containsKey(entity.getIndex());
     }
 
     public EntityGroup getOrCreateEntityGroup(ComponentTypeQuery componentTypeQuery) {
+        componentTypeQuery.compile(ecsClassScanner);
         EntityGroup entityGroup = null;
         for (EntityGroup item : systemNeedEntityGroups) {
             if (item.compareQuery(componentTypeQuery)) {
@@ -151,27 +427,191 @@ public class EcsEntityManager implements EcsCleanable {
             }
         }
         if (entityGroup == null) {
-            EntityGroup newEntityGroup = new EntityGroup();
+            EntityGroup newEntityGroup = new EntityGroup(this);
             newEntityGroup.addRequirementQuery(componentTypeQuery);
             entityArchetypes.forEach(newEntityGroup::addArchetypeIfMatching);
             systemNeedEntityGroups.add(newEntityGroup);
+            if (!destroyingQueried && isDestroyingQuery(componentTypeQuery)) {
+                destroyingQueried = true;
+                tagDestroyRequestedEntities();
+            }
             return newEntityGroup;
         } else {
             return entityGroup;
         }
     }
 
+    private static boolean isDestroyingQuery(ComponentTypeQuery componentTypeQuery) {
+        return componentTypeQuery.getAll().contains(DestroyingComponent.class)
+                || componentTypeQuery.getAny().contains(DestroyingComponent.class)
+                || componentTypeQuery.getNone().contains(DestroyingComponent.class);
+    }
+
+    /**
+     * 第一个关注DestroyingComponent的EntityGroup创建之前请求销毁的Entity没有添加该组件，创建时补充添加
+     */
+    private void tagDestroyRequestedEntities() {
+        for (int index = 1; index < entitiesNextIndex; index++) {
+            Entity entity = entitySlots[index];
+            if (entity != null && entity.isDestroyRequested() && !entity.hasComponent(DestroyingComponent.class)) {
+                entity.addComponent(DestroyingComponent.generate());
+            }
+        }
+    }
+
+    /**
+     * @return 是否存在查询条件包含DestroyingComponent的EntityGroup，不存在时请求销毁的Entity不需要添加该组件
+     */
+    public boolean isDestroyingQueried() {
+        return destroyingQueried;
+    }
+
+    /**
+     * 获取组件类型索引
+     * @throws top.kgame.lib.ecs.exception.InvalidEcsTypeException 组件类型未注册时抛出
+     */
+    public int getComponentTypeIndex(Class<?> type) {
+        return ecsClassScanner.getComponentTypeIndex(type);
+    }
+
+    /**
+     * 查询组件类型索引，未注册的类型返回-1
+     */
+    public int findComponentTypeIndex(Class<?> type) {
+        return ecsClassScanner.findComponentTypeIndex(type);
+    }
+
+    /**
+     * 开始并行执行System，期间创建、销毁Entity以及添加、移除组件都会抛出异常
+     */
+    public void beginParallelUpdate() {
+        parallelUpdating = true;
+    }
+
+    public void endParallelUpdate() {
+        parallelUpdating = false;
+    }
+
+    public boolean isParallelUpdating() {
+        return parallelUpdating;
+    }
+
+    /**
+     * @throws IllegalStateException System并行执行期间抛出
+     */
+    public void checkStructuralChange() {
+        if (parallelUpdating) {
+            throw new IllegalStateException("entity structural change is not allowed during parallel update, use EcsCommand instead");
+        }
+    }
+
+    public EcsObjectPool getObjectPool() {
+        return objectPool;
+    }
+
+    /**
+     * 从对象池获取已回收的组件
+     * @return 组件实例，池中没有可用组件时返回null
+     */
+    public <T extends EcsComponent> T obtainComponent(Class<T> type) {
+        int typeIndex = findComponentTypeIndex(type);
+        if (typeIndex < 0) {
+            return null;
+        }
+        return type.cast(objectPool.obtainComponent(typeIndex));
+    }
+
+    /**
+     * 回收已经clean的组件，对象池未开启或者已满时直接丢弃
+     */
+    public void recycleComponent(int typeIndex, EcsComponent component) {
+        objectPool.recycleComponent(typeIndex, component);
+    }
+
     public EcsWorld getWorld() {
         return world;
     }
 
     public void destroyEntity(Entity entity) {
+        checkStructuralChange();
         if (notExistEntity(entity)) {
             logger.warn("destroy entity failed! reason: entity not exist. index:{}", entity.getIndex());
             return;
         }
-        if (entityIndex.remove(entity.getIndex()) != null) {
-            entity.clean();
+        releaseIndex(entity.getIndex());
+        entity.clean();
+        objectPool.recycleEntity(entity);
+    }
+
+    /**
+     * 批量销毁Entity，按archetype分组后每个archetype只压缩一次
+     * <p>不存在或者重复的Entity会被忽略。</p>
+     */
+    public void destroyEntities(List<Entity> entities) {
+        checkStructuralChange();
+        int size = entities.size();
+        if (size == 0) {
+            return;
+        }
+        if (size == 1) {
+            destroyEntity(entities.get(0));
+            return;
+        }
+        Entity[] destroying = new Entity[size];
+        int[] archetypeOrders = new int[size];
+        Map<EntityArchetype, Integer> archetypeOrderIndex = new IdentityHashMap<>();
+        List<EntityArchetype> archetypes = new ArrayList<>();
+        int count = 0;
+        for (Entity entity : entities) {
+            if (notExistEntity(entity)) {
+                logger.warn("destroy entity failed! reason: entity not exist. index:{}", entity.getIndex());
+                continue;
+            }
+            releaseIndex(entity.getIndex());
+            EntityArchetype archetype = entity.getArchetype();
+            Integer order = archetypeOrderIndex.get(archetype);
+            if (order == null) {
+                order = archetypes.size();
+                archetypeOrderIndex.put(archetype, order);
+                archetypes.add(archetype);
+            }
+            destroying[count] = entity;
+            archetypeOrders[count] = order;
+            count++;
+        }
+        //按archetype计数排序，同一archetype的Entity保持原有顺序
+        int[] offsets = new int[archetypes.size() + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[archetypeOrders[i] + 1]++;
+        }
+        for (int i = 0; i < archetypes.size(); i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        Entity[] sorted = new Entity[count];
+        int[] positions = Arrays.copyOf(offsets, archetypes.size());
+        for (int i = 0; i < count; i++) {
+            sorted[positions[archetypeOrders[i]]++] = destroying[i];
+        }
+        int[] rows = new int[count];
+        for (int order = 0; order < archetypes.size(); order++) {
+            EntityArchetype archetype = archetypes.get(order);
+            int from = offsets[order];
+            int to = offsets[order + 1];
+            int rowCount = 0;
+            for (int i = from; i < to; i++) {
+                Entity entity = sorted[i];
+                if (entity.getArchetypeRow() >= 0) {
+                    entity.cleanComponents();
+                    rows[rowCount++] = entity.getArchetypeRow();
+                }
+            }
+            if (rowCount > 0) {
+                archetype.removeRows(rows, rowCount);
+            }
+            for (int i = from; i < to; i++) {
+                sorted[i].clean();
+                objectPool.recycleEntity(sorted[i]);
+            }
         }
     }
 }
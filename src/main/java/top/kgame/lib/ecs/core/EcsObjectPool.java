@@ -0,0 +1,116 @@
+package top.kgame.lib.ecs.core;
+
+import top.kgame.lib.ecs.EcsCleanable;
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.Entity;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 已销毁Entity和组件的对象池，每个EcsWorld一个，默认不缓存任何对象
+ * <p>通过{@link #setLimit(int, int)}开启后，销毁的Entity和{@link EcsCleanable}组件会在clean之后放入池中，
+ * 创建Entity时优先复用。复用后原有的引用会指向新的Entity或组件，开启前需要确认业务代码不会在销毁后继续持有它们。</p>
+ * <p>命中和未命中次数只在对应的池开启时统计，未开启时不计数。</p>
+ */
+public final class EcsObjectPool implements EcsCleanable {
+    private final ArrayDeque<Entity> entityPool = new ArrayDeque<>();
+    //组件类型索引 -> 已回收的组件
+    private final List<ArrayDeque<EcsComponent>> componentPools = new ArrayList<>();
+    private int maxEntitySize = 0;
+    private int maxComponentSize = 0;
+
+    private long entityHitCount = 0;
+    private long entityMissCount = 0;
+    private long componentHitCount = 0;
+    private long componentMissCount = 0;
+
+    /**
+     * 设置池容量，为0时不缓存，超出容量的对象直接丢弃
+     * @param maxEntitySize 最多缓存的Entity数量
+     * @param maxComponentSize 每种组件类型最多缓存的组件数量
+     */
+    public void setLimit(int maxEntitySize, int maxComponentSize) {
+        if (maxEntitySize < 0 || maxComponentSize < 0) {
+            throw new IllegalArgumentException("pool limit must not be negative");
+        }
+        this.maxEntitySize = maxEntitySize;
+        this.maxComponentSize = maxComponentSize;
+        while (entityPool.size() > maxEntitySize) {
+            entityPool.pollLast();
+        }
+        for (ArrayDeque<EcsComponent> componentPool : componentPools) {
+            while (componentPool.size() > maxComponentSize) {
+                componentPool.pollLast();
+            }
+        }
+    }
+
+    Entity obtainEntity() {
+        if (maxEntitySize == 0) {
+            return null;
+        }
+        Entity entity = entityPool.pollLast();
+        if (entity == null) {
+            entityMissCount++;
+        } else {
+            entityHitCount++;
+        }
+        return entity;
+    }
+
+    void recycleEntity(Entity entity) {
+        if (entityPool.size() < maxEntitySize) {
+            entityPool.addLast(entity);
+        }
+    }
+
+    EcsComponent obtainComponent(int typeIndex) {
+        if (maxComponentSize == 0) {
+            return null;
+        }
+        EcsComponent component = typeIndex < componentPools.size() ? componentPools.get(typeIndex).pollLast() : null;
+        if (component == null) {
+            componentMissCount++;
+        } else {
+            componentHitCount++;
+        }
+        return component;
+    }
+
+    void recycleComponent(int typeIndex, EcsComponent component) {
+        if (maxComponentSize == 0) {
+            return;
+        }
+        while (componentPools.size() <= typeIndex) {
+            componentPools.add(new ArrayDeque<>());
+        }
+        ArrayDeque<EcsComponent> componentPool = componentPools.get(typeIndex);
+        if (componentPool.size() < maxComponentSize) {
+            componentPool.addLast(component);
+        }
+    }
+
+    public long getEntityHitCount() {
+        return entityHitCount;
+    }
+
+    public long getEntityMissCount() {
+        return entityMissCount;
+    }
+
+    public long getComponentHitCount() {
+        return componentHitCount;
+    }
+
+    public long getComponentMissCount() {
+        return componentMissCount;
+    }
+
+    @Override
+    public void clean() {
+        entityPool.clear();
+        componentPools.clear();
+    }
+}
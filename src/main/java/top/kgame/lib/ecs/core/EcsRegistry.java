@@ -0,0 +1,139 @@
+package top.kgame.lib.ecs.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 编译期生成的ECS类型注册表，由{@link top.kgame.lib.ecs.processor.EcsRegistryProcessor}在编译时写入{@link #RESOURCE_NAME}
+ * <p>classpath中每个jar或目录都可以有自己的注册表，加载时合并，并记录带有注册表的jar或目录。
+ * {@link EcsClassScanner}按注册表加载这些jar或目录中的类型，不扫描也不初始化类；没有注册表的jar或目录仍然通过扫描加载。</p>
+ * <p>注册表按类加载器分别加载和缓存。</p>
+ * <p>文件每行一条记录：</p>
+ * <pre>
+ * system 类名 所属SystemGroup类名（没有时为-）
+ * component 类名
+ * factory 类名
+ * </pre>
+ * <p>组件按记录顺序分配类型索引。</p>
+ */
+public final class EcsRegistry {
+    private static final Logger logger = LogManager.getLogger(EcsRegistry.class);
+    public static final String RESOURCE_NAME = "META-INF/kgame-ecs/registry.txt";
+    public static final String KIND_SYSTEM = "system";
+    public static final String KIND_COMPONENT = "component";
+    public static final String KIND_FACTORY = "factory";
+    public static final String NO_GROUP = "-";
+
+    //类加载器 -> 注册表，注册表只保存类名，不持有类加载器
+    private static final Map<ClassLoader, EcsRegistry> REGISTRIES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    //带有注册表的jar或目录的URL前缀
+    private final List<String> roots = new ArrayList<>();
+    private final List<String[]> systems = new ArrayList<>();
+    private final List<String> components = new ArrayList<>();
+    private final List<String> factories = new ArrayList<>();
+
+    /**
+     * @return 类加载器中所有注册表合并后的结果，不存在注册表时为空
+     */
+    public static EcsRegistry getInstance(ClassLoader classLoader) {
+        return REGISTRIES.computeIfAbsent(classLoader, EcsRegistry::load);
+    }
+
+    static EcsRegistry load(ClassLoader classLoader) {
+        EcsRegistry registry = new EcsRegistry();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(RESOURCE_NAME);
+            for (URL resource : Collections.list(resources)) {
+                String url = resource.toString();
+                registry.roots.add(url.substring(0, url.length() - RESOURCE_NAME.length()));
+                registry.read(resource);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return registry;
+    }
+
+    private void read(URL resource) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                switch (fields[0]) {
+                    case KIND_SYSTEM -> systems.add(new String[]{fields[1], fields.length > 2 ? fields[2] : NO_GROUP});
+                    case KIND_COMPONENT -> components.add(fields[1]);
+                    case KIND_FACTORY -> factories.add(fields[1]);
+                    default -> logger.warn("unknown ecs registry record {} in {}", line, resource);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param resource classpath中的资源
+     * @return 资源所在的jar或目录是否带有注册表，带有时其中的类型已经由注册表记录，不需要扫描
+     */
+    public boolean covers(URL resource) {
+        String url = resource.toString();
+        for (String root : roots) {
+            if (url.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 包中的System，每项为{类名, 所属SystemGroup类名或{@link #NO_GROUP}}
+     */
+    public List<String[]> getSystems(String packageName) {
+        List<String[]> result = new ArrayList<>();
+        for (String[] system : systems) {
+            if (inPackage(system[0], packageName)) {
+                result.add(system);
+            }
+        }
+        return result;
+    }
+
+    public List<String> getComponents(String packageName) {
+        return filter(components, packageName);
+    }
+
+    public List<String> getFactories(String packageName) {
+        return filter(factories, packageName);
+    }
+
+    private static List<String> filter(List<String> classNames, String packageName) {
+        List<String> result = new ArrayList<>();
+        for (String className : classNames) {
+            if (inPackage(className, packageName)) {
+                result.add(className);
+            }
+        }
+        return result;
+    }
+
+    private static boolean inPackage(String className, String packageName) {
+        return className.startsWith(packageName) && className.length() > packageName.length()
+                && className.charAt(packageName.length()) == '.';
+    }
+}
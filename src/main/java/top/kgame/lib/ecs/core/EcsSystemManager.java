@@ -7,7 +7,9 @@ import top.kgame.lib.ecs.EcsSystem;
 import top.kgame.lib.ecs.EcsSystemGroup;
 import top.kgame.lib.ecs.EcsWorld;
 
-import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class EcsSystemManager implements EcsCleanable {
@@ -17,30 +19,62 @@ public class EcsSystemManager implements EcsCleanable {
     private final SortableSystemList topLevelSystems = new SortableSystemList();
     private EcsSystem currentTopSystem;
     private EcsClassScanner ecsClassScanner;
+    private EcsEntityManager entityManager;
+    private Map<Class<?>, List<Class<? extends EcsSystem>>> templateSystemOrders;
+    private final Map<Class<?>, List<Class<? extends EcsSystem>>> systemOrders = new HashMap<>();
 
     public EcsSystemManager(final EcsWorld world) {
         this.world = world;
     }
 
-    public void init(EcsClassScanner ecsClassScanner) {
+    public void init(EcsClassScanner ecsClassScanner, EcsEntityManager entityManager) {
+        init(ecsClassScanner, entityManager, null);
+    }
+
+    /**
+     * @param templateSystemOrders 模板中各SystemGroup的排序结果，见{@link #getSystemOrders()}，为null时重新排序
+     */
+    public void init(EcsClassScanner ecsClassScanner, EcsEntityManager entityManager,
+                     Map<Class<?>, List<Class<? extends EcsSystem>>> templateSystemOrders) {
         this.ecsClassScanner = ecsClassScanner;
+        this.entityManager = entityManager;
+        this.templateSystemOrders = templateSystemOrders;
         for (Class<? extends EcsSystem> systemClz : ecsClassScanner.getTopSystemClasses()) {
             EcsSystem system = createSystem(systemClz);
             topLevelSystems.addSystem(system);
         }
-        topLevelSystems.tryReorderSystem();
-        logger.info("{} order: {}", this.getClass().getSimpleName(), topLevelSystems);
+        sortSystemList(EcsSystemManager.class, topLevelSystems);
+    }
+
+    /**
+     * 排序SystemGroup中的System，有模板排序结果时直接使用
+     * @param ownerClass SystemGroup类型，顶层System为EcsSystemManager
+     */
+    public void sortSystemList(Class<?> ownerClass, SortableSystemList systemList) {
+        List<Class<? extends EcsSystem>> templateOrder = templateSystemOrders == null ? null : templateSystemOrders.get(ownerClass);
+        if (templateOrder != null && systemList.applySortedOrder(templateOrder)) {
+            return;
+        }
+        systemList.tryReorderSystem();
+        systemOrders.put(ownerClass, systemList.getSortedSystemClasses());
+        logger.info("{} order: {}", ownerClass.getSimpleName(), systemList);
+    }
+
+    /**
+     * @return 初始化时各SystemGroup的排序结果，SystemGroup类型 -> 排序后的System类型，顶层System为EcsSystemManager
+     */
+    public Map<Class<?>, List<Class<? extends EcsSystem>>> getSystemOrders() {
+        return systemOrders;
     }
 
     public <T extends EcsSystem> T createSystem(Class<T> systemClass) {
         T system;
         try {
-            system = systemClass.getConstructor().newInstance();
-            system.init(this);
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException |
-                 NoSuchMethodException e) {
+            system = EcsClassScanner.getConstructor(systemClass).get();
+        } catch (IllegalArgumentException e) {
             throw new RuntimeException(e);
         }
+        system.init(this);
         return system;
     }
 
@@ -48,10 +82,15 @@ public class EcsSystemManager implements EcsCleanable {
         return world;
     }
 
+    public EcsEntityManager getEntityManager() {
+        return entityManager;
+    }
+
     @Override
     public void clean() {
         topLevelSystems.clean();
         this.currentTopSystem = null;
+        systemOrders.clear();
     }
 
     public void update() {
@@ -2,18 +2,48 @@ package top.kgame.lib.ecs.core;
 
 import top.kgame.lib.ecs.EcsCleanable;
 import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.EcsStructComponent;
 import top.kgame.lib.ecs.Entity;
 
 import java.util.*;
 
 public class EntityArchetype implements EcsCleanable {
+    /**
+     * 每个{@link ArchetypeChunk}的行数，必须是2的幂
+     */
+    public static final int CHUNK_CAPACITY = 128;
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_CAPACITY);
+    private static final int CHUNK_MASK = CHUNK_CAPACITY - 1;
+
+    private static final int[] EMPTY_SLOTS = new int[0];
+    private static final EntityArchetype[] EMPTY_TRANSITIONS = new EntityArchetype[0];
+    private static final ArchetypeChunk[] EMPTY_CHUNKS = new ArchetypeChunk[0];
+    private static final StructLayout[] EMPTY_LAYOUTS = new StructLayout[0];
     public static final EntityArchetype EMPTY_INSTANCE = new EMPTY();
     private final Set<Class<? extends EcsComponent>> componentMatchTypes = new HashSet<>();
-    private final List<Entity> entityList = new ArrayList<>();
+    //按行存放Entity及其组件，已分配的块在archetype清理前不会释放，供后续Entity复用
+    private ArchetypeChunk[] chunks = EMPTY_CHUNKS;
+    private int rowCount = 0;
+    //包含该archetype的EntityGroup，Entity数量变化时同步更新
+    private final List<EntityGroup> matchingGroups = new ArrayList<>();
+    private ComponentTypeMask signature = ComponentTypeMask.EMPTY;
+    //组件类型索引 -> 组件在ArchetypeChunk中的列，-1表示不包含
+    private int[] componentSlots = EMPTY_SLOTS;
+    //组件在ArchetypeChunk中的列 -> 组件类型索引
+    private int[] slotTypeIndexes = EMPTY_SLOTS;
+    //组件在ArchetypeChunk中的列 -> 堆外组件布局，普通组件为null
+    private StructLayout[] slotLayouts = EMPTY_LAYOUTS;
+    //组件类型索引 -> 添加该组件后的archetype
+    private EntityArchetype[] addTransitions = EMPTY_TRANSITIONS;
+    //组件类型索引 -> 移除该组件后的archetype
+    private EntityArchetype[] removeTransitions = EMPTY_TRANSITIONS;
+    //大于0时表示正在被遍历，此时移除的Entity只标记为失效，解锁后再压缩
+    private int iterationLock = 0;
+    private int staleRowCount = 0;
 
     private static class EMPTY extends EntityArchetype {
         @Override
-        public void addComponent(Class<? extends EcsComponent> componentMatchType) {
+        public void addComponent(Class<? extends EcsComponent> componentMatchType, int typeIndex) {
             throw new UnsupportedOperationException();
         }
 
@@ -22,10 +52,30 @@ public class EntityArchetype implements EcsCleanable {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public void ensureCapacity(int additionalRows) {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public boolean removeEntity(Entity entity) {
             throw new UnsupportedOperationException();
         }
+
+        @Override
+        public void moveEntity(Entity entity, EntityArchetype target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setAddTransition(int typeIndex, EntityArchetype target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setRemoveTransition(int typeIndex, EntityArchetype target) {
+            throw new UnsupportedOperationException();
+        }
     }
 
     @Override
@@ -33,34 +83,271 @@ public class EntityArchetype implements EcsCleanable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         EntityArchetype that = (EntityArchetype) o;
-        return componentMatchTypes.equals(that.componentMatchTypes);
+        return signature.equals(that.signature);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(componentMatchTypes);
+        return signature.hashCode();
     }
 
     @Override
     public void clean() {
         componentMatchTypes.clear();
-        entityList.clear();
+        chunks = EMPTY_CHUNKS;
+        rowCount = 0;
+        matchingGroups.clear();
+        iterationLock = 0;
+        staleRowCount = 0;
+        componentSlots = EMPTY_SLOTS;
+        slotTypeIndexes = EMPTY_SLOTS;
+        slotLayouts = EMPTY_LAYOUTS;
+        signature = ComponentTypeMask.EMPTY;
+        addTransitions = EMPTY_TRANSITIONS;
+        removeTransitions = EMPTY_TRANSITIONS;
     }
 
     public Set<Class<? extends EcsComponent>> getComponentTypes() {
         return componentMatchTypes;
     }
 
+    /**
+     * 获取当前属于该archetype的所有Entity
+     * @return 新创建的Entity列表
+     */
     public List<Entity> getEntityList() {
-        return entityList;
+        List<Entity> result = new ArrayList<>(size());
+        for (int row = 0; row < rowCount; row++) {
+            if (isLiveRow(row)) {
+                result.add(getEntity(row));
+            }
+        }
+        return result;
     }
 
+    /**
+     * @return 当前属于该archetype的Entity数量
+     */
     public int size() {
-        return entityList.size();
+        return rowCount - staleRowCount;
+    }
+
+    /**
+     * @return 已使用的行数，遍历期间包含已移出的Entity
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public ArchetypeChunk getChunk(int chunkIndex) {
+        return chunks[chunkIndex];
+    }
+
+    public Entity getEntity(int row) {
+        return chunks[row >>> CHUNK_SHIFT].getEntities()[row & CHUNK_MASK];
+    }
+
+    /**
+     * @param row 行号
+     * @param slot 组件所在列，见{@link #getComponentSlot(int)}
+     * @return 组件实例，堆外组件返回根据堆外数据新创建的副本
+     */
+    public EcsComponent getComponent(int row, int slot) {
+        ArchetypeChunk chunk = chunks[row >>> CHUNK_SHIFT];
+        StructLayout layout = slotLayouts[slot];
+        if (layout != null) {
+            return (EcsComponent) layout.load(chunk.getStructColumnBySlot(slot), row & CHUNK_MASK);
+        }
+        return chunk.getColumnBySlot(slot)[row & CHUNK_MASK];
+    }
+
+    /**
+     * 写入组件，堆外组件只复制字段值，不保留组件实例
+     */
+    public void setComponent(int row, int slot, EcsComponent component) {
+        ArchetypeChunk chunk = chunks[row >>> CHUNK_SHIFT];
+        StructLayout layout = slotLayouts[slot];
+        if (layout != null) {
+            layout.store(component, chunk.getStructColumnBySlot(slot), row & CHUNK_MASK);
+            return;
+        }
+        chunk.getColumnBySlot(slot)[row & CHUNK_MASK] = component;
+    }
+
+    /**
+     * @return 指定列是否为堆外组件
+     */
+    public boolean isStructSlot(int slot) {
+        return slotLayouts[slot] != null;
+    }
+
+    /**
+     * @return 指定行的Entity当前是否仍属于该archetype
+     */
+    public boolean isLiveRow(int row) {
+        Entity entity = getEntity(row);
+        return entity.getArchetypeRow() == row && entity.getArchetype() == this;
+    }
+
+    /**
+     * @return 是否存在遍历期间移出、尚未压缩的行
+     */
+    public boolean hasStaleRows() {
+        return staleRowCount > 0;
+    }
+
+    void addMatchingGroup(EntityGroup entityGroup) {
+        matchingGroups.add(entityGroup);
+    }
+
+    private void updateGroupEntityCount(int delta) {
+        for (int i = 0; i < matchingGroups.size(); i++) {
+            matchingGroups.get(i).updateEntityCount(delta);
+        }
+    }
+
+    /**
+     * 开始遍历，遍历期间已有Entity的行号保持不变
+     */
+    public void lockIteration() {
+        iterationLock++;
+    }
+
+    /**
+     * 结束遍历，最外层遍历结束时压缩遍历期间移出的Entity
+     */
+    public void unlockIteration() {
+        if (--iterationLock == 0 && staleRowCount > 0) {
+            compactStaleRows();
+        }
+    }
+
+    private void compactStaleRows() {
+        int liveRow = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!isLiveRow(row)) {
+                continue;
+            }
+            if (liveRow != row) {
+                copyRow(row, liveRow);
+                getEntity(liveRow).setArchetypeRow(liveRow);
+            }
+            liveRow++;
+        }
+        for (int row = liveRow; row < rowCount; row++) {
+            clearRow(row);
+        }
+        rowCount = liveRow;
+        staleRowCount = 0;
+    }
+
+    private void copyRow(int fromRow, int toRow) {
+        ArchetypeChunk from = chunks[fromRow >>> CHUNK_SHIFT];
+        ArchetypeChunk to = chunks[toRow >>> CHUNK_SHIFT];
+        int fromIndex = fromRow & CHUNK_MASK;
+        int toIndex = toRow & CHUNK_MASK;
+        to.getEntities()[toIndex] = from.getEntities()[fromIndex];
+        for (int slot = 0; slot < slotTypeIndexes.length; slot++) {
+            StructLayout layout = slotLayouts[slot];
+            if (layout != null) {
+                layout.copy(from.getStructColumnBySlot(slot), fromIndex, to.getStructColumnBySlot(slot), toIndex);
+            } else {
+                to.getColumnBySlot(slot)[toIndex] = from.getColumnBySlot(slot)[fromIndex];
+            }
+        }
+    }
+
+    private void clearRow(int row) {
+        ArchetypeChunk chunk = chunks[row >>> CHUNK_SHIFT];
+        int index = row & CHUNK_MASK;
+        chunk.getEntities()[index] = null;
+        for (int slot = 0; slot < slotTypeIndexes.length; slot++) {
+            if (slotLayouts[slot] == null) {
+                chunk.getColumnBySlot(slot)[index] = null;
+            }
+        }
+    }
+
+    public void addComponent(Class<? extends EcsComponent> componentClass, int typeIndex) {
+        if (!componentMatchTypes.add(componentClass)) {
+            return;
+        }
+        if (typeIndex >= componentSlots.length) {
+            int oldLength = componentSlots.length;
+            componentSlots = Arrays.copyOf(componentSlots, typeIndex + 1);
+            Arrays.fill(componentSlots, oldLength, componentSlots.length, -1);
+        }
+        int slot = slotTypeIndexes.length;
+        slotTypeIndexes = Arrays.copyOf(slotTypeIndexes, slot + 1);
+        slotTypeIndexes[slot] = typeIndex;
+        slotLayouts = Arrays.copyOf(slotLayouts, slot + 1);
+        if (EcsStructComponent.class.isAssignableFrom(componentClass)) {
+            slotLayouts[slot] = StructLayout.of(componentClass.asSubclass(EcsStructComponent.class));
+        }
+        componentSlots[typeIndex] = slot;
+        signature = signature.with(typeIndex);
+    }
+
+    /**
+     * 获取由组件类型索引组成的archetype签名
+     */
+    public ComponentTypeMask getSignature() {
+        return signature;
+    }
+
+    /**
+     * 获取组件在ArchetypeChunk中的列
+     * @param typeIndex 组件类型索引
+     * @return 组件所在列，不包含该组件时返回-1
+     */
+    public int getComponentSlot(int typeIndex) {
+        return typeIndex < componentSlots.length ? componentSlots[typeIndex] : -1;
+    }
+
+    /**
+     * 获取ArchetypeChunk中指定列的组件类型索引
+     */
+    public int getComponentTypeIndex(int slot) {
+        return slotTypeIndexes[slot];
+    }
+
+    public int getComponentCount() {
+        return slotTypeIndexes.length;
+    }
+
+    /**
+     * 获取添加指定组件后的archetype缓存
+     * @param typeIndex 组件类型索引
+     * @return 目标archetype，未缓存时返回null
+     */
+    public EntityArchetype getAddTransition(int typeIndex) {
+        return typeIndex < addTransitions.length ? addTransitions[typeIndex] : null;
+    }
+
+    public void setAddTransition(int typeIndex, EntityArchetype target) {
+        addTransitions = setTransition(addTransitions, typeIndex, target);
+    }
+
+    /**
+     * 获取移除指定组件后的archetype缓存
+     * @param typeIndex 组件类型索引
+     * @return 目标archetype，未缓存时返回null
+     */
+    public EntityArchetype getRemoveTransition(int typeIndex) {
+        return typeIndex < removeTransitions.length ? removeTransitions[typeIndex] : null;
     }
 
-    public void addComponent(Class<? extends EcsComponent> componentClass) {
-        componentMatchTypes.add(componentClass);
+    public void setRemoveTransition(int typeIndex, EntityArchetype target) {
+        removeTransitions = setTransition(removeTransitions, typeIndex, target);
+    }
+
+    private static EntityArchetype[] setTransition(EntityArchetype[] transitions, int typeIndex, EntityArchetype target) {
+        EntityArchetype[] result = transitions;
+        if (typeIndex >= result.length) {
+            result = Arrays.copyOf(result, typeIndex + 1);
+        }
+        result[typeIndex] = target;
+        return result;
     }
 
     public boolean isSame(Collection<Class<? extends EcsComponent>> types) {
@@ -71,11 +358,117 @@ public class EntityArchetype implements EcsCleanable {
         return componentMatchTypes.contains(componentClass);
     }
 
+    /**
+     * 预先分配存储块，保证之后添加additionalRows个Entity时不需要再分配
+     */
+    public void ensureCapacity(int additionalRows) {
+        int chunkCount = (rowCount + additionalRows + CHUNK_CAPACITY - 1) >>> CHUNK_SHIFT;
+        if (chunkCount <= chunks.length) {
+            return;
+        }
+        int oldCount = chunks.length;
+        chunks = Arrays.copyOf(chunks, chunkCount);
+        for (int chunkIndex = oldCount; chunkIndex < chunkCount; chunkIndex++) {
+            chunks[chunkIndex] = new ArchetypeChunk(this, chunkIndex << CHUNK_SHIFT, CHUNK_CAPACITY, slotLayouts);
+        }
+    }
+
+    /**
+     * 在末尾添加一行，Entity的组件需要通过{@link #setComponent(int, int, EcsComponent)}写入
+     */
     public void addEntity(Entity entity) {
-        entityList.add(entity);
+        int row = rowCount;
+        int chunkIndex = row >>> CHUNK_SHIFT;
+        if (chunkIndex == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkIndex + 1);
+            chunks[chunkIndex] = new ArchetypeChunk(this, row, CHUNK_CAPACITY, slotLayouts);
+        }
+        chunks[chunkIndex].getEntities()[row & CHUNK_MASK] = entity;
+        rowCount++;
+        entity.setArchetypeRow(row);
+        updateGroupEntityCount(1);
+    }
+
+    /**
+     * 将Entity迁移到target，两者共有的组件会复制到target的对应列中
+     */
+    public void moveEntity(Entity entity, EntityArchetype target) {
+        int oldRow = entity.getArchetypeRow();
+        target.addEntity(entity);
+        int newRow = entity.getArchetypeRow();
+        ArchetypeChunk from = chunks[oldRow >>> CHUNK_SHIFT];
+        ArchetypeChunk to = target.chunks[newRow >>> CHUNK_SHIFT];
+        int fromIndex = oldRow & CHUNK_MASK;
+        int toIndex = newRow & CHUNK_MASK;
+        for (int slot = 0; slot < slotTypeIndexes.length; slot++) {
+            int targetSlot = target.getComponentSlot(slotTypeIndexes[slot]);
+            if (targetSlot < 0) {
+                continue;
+            }
+            StructLayout layout = slotLayouts[slot];
+            if (layout != null) {
+                layout.copy(from.getStructColumnBySlot(slot), fromIndex, to.getStructColumnBySlot(targetSlot), toIndex);
+            } else {
+                to.getColumnBySlot(targetSlot)[toIndex] = from.getColumnBySlot(slot)[fromIndex];
+            }
+        }
+        removeRow(oldRow);
     }
 
+    /**
+     * 移除Entity，使用最后一行填补空位，不保证Entity顺序
+     * <p>遍历期间只标记为失效，Entity保留在原位置直到遍历结束</p>
+     */
     public boolean removeEntity(Entity entity) {
-        return entityList.remove(entity);
+        int row = entity.getArchetypeRow();
+        if (row < 0 || row >= rowCount || getEntity(row) != entity) {
+            return false;
+        }
+        removeRow(row);
+        entity.setArchetypeRow(-1);
+        return true;
+    }
+
+    /**
+     * 批量移除行，每个空出的位置最多由末尾的一行填补
+     * @param rows 需要移除的行，处理时会被排序
+     * @param count 行数
+     */
+    void removeRows(int[] rows, int count) {
+        Arrays.sort(rows, 0, count);
+        for (int i = 0; i < count; i++) {
+            getEntity(rows[i]).setArchetypeRow(-1);
+        }
+        updateGroupEntityCount(-count);
+        if (iterationLock > 0) {
+            staleRowCount += count;
+            return;
+        }
+        //从大到小移除，末尾的行要么是本次移除的行，要么是保留的行
+        for (int i = count - 1; i >= 0; i--) {
+            int row = rows[i];
+            int lastRow = rowCount - 1;
+            if (row != lastRow) {
+                copyRow(lastRow, row);
+                getEntity(row).setArchetypeRow(row);
+            }
+            clearRow(lastRow);
+            rowCount--;
+        }
+    }
+
+    private void removeRow(int row) {
+        updateGroupEntityCount(-1);
+        if (iterationLock > 0) {
+            staleRowCount++;
+            return;
+        }
+        int lastRow = rowCount - 1;
+        if (row != lastRow) {
+            copyRow(lastRow, row);
+            getEntity(row).setArchetypeRow(row);
+        }
+        clearRow(lastRow);
+        rowCount--;
     }
 }
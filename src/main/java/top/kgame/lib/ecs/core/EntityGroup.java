@@ -7,26 +7,43 @@ import top.kgame.lib.ecs.EcsComponent;
 import top.kgame.lib.ecs.Entity;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 public class EntityGroup implements EcsCleanable {
     private static final Logger logger = LogManager.getLogger(EntityGroup.class);
     private final List<ComponentTypeQuery> requirementQuery = new ArrayList<>();
     private final List<EntityArchetype> matchingTypes = new ArrayList<>();
+    private final EcsEntityManager entityManager;
+    //forEach开始时各archetype的行数，非嵌套遍历时复用
+    private int[] iterationRowLimits = new int[0];
+    private int iterationDepth = 0;
+    //并行遍历时的存储块快照，不在并行执行中开始遍历时复用
+    private ArchetypeChunk[] parallelChunks = new ArchetypeChunk[0];
+    private int[] parallelRowCounts = new int[0];
+    //所有匹配archetype中的Entity数量，由EntityArchetype在Entity加入/移出时维护
+    private int entityCount = 0;
+
+    public EntityGroup(EcsEntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
 
     public boolean isEmpty() {
-       return matchingTypes.stream().noneMatch(
-               entityArchetype -> entityArchetype.size() > 0);
+        return entityCount == 0;
     }
 
     public int length() {
-        int result = 0;
-        for (EntityArchetype entityArchetype : matchingTypes) {
-            result += entityArchetype.size();
-        }
-        return result;
+        return entityCount;
+    }
+
+    void updateEntityCount(int delta) {
+        entityCount += delta;
     }
 
     public List<Entity> getEntityList() {
@@ -36,12 +53,199 @@ public class EntityGroup implements EcsCleanable {
                 if (result == null) {
                     result = new ArrayList<>();
                 }
-                result.addAll(entityArchetype.getEntityList());
+                for (int row = 0; row < entityArchetype.rowCount(); row++) {
+                    if (entityArchetype.isLiveRow(row)) {
+                        result.add(entityArchetype.getEntity(row));
+                    }
+                }
             }
         }
         return result == null ? Collections.emptyList() : result;
     }
 
+    /**
+     * 按块遍历匹配archetype的回调
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        /**
+         * @param chunk 存储块
+         * @param rowCount 本次遍历需要访问的行数，从0开始
+         */
+        void accept(ArchetypeChunk chunk, int rowCount);
+    }
+
+    /**
+     * 直接遍历匹配archetype中的Entity，不产生额外的集合对象
+     * <p>遍历对象为开始遍历时匹配的所有Entity，每个Entity只会被访问一次：</p>
+     * <p>遍历期间添加/移除组件导致Entity迁移archetype时，仍然在原位置被访问；</p>
+     * <p>遍历期间新创建或新迁入匹配archetype的Entity，不会在本次遍历中被访问。</p>
+     * @param action 对每个Entity执行的操作
+     */
+    public void forEach(Consumer<? super Entity> action) {
+        int archetypeCount = matchingTypes.size();
+        if (archetypeCount == 0) {
+            return;
+        }
+        if (entityManager.isParallelUpdating()) {
+            //并行执行期间Entity结构不会变化，不需要锁定archetype，多个线程可以同时遍历
+            for (int i = 0; i < archetypeCount; i++) {
+                EntityArchetype entityArchetype = matchingTypes.get(i);
+                int rowCount = entityArchetype.rowCount();
+                for (int row = 0; row < rowCount; row++) {
+                    action.accept(entityArchetype.getEntity(row));
+                }
+            }
+            return;
+        }
+        int[] rowLimits = beginIteration(archetypeCount);
+        try {
+            for (int i = 0; i < archetypeCount; i++) {
+                EntityArchetype entityArchetype = matchingTypes.get(i);
+                int rowLimit = rowLimits[i];
+                for (int row = 0; row < rowLimit; row++) {
+                    action.accept(entityArchetype.getEntity(row));
+                }
+            }
+        } finally {
+            endIteration(archetypeCount);
+        }
+    }
+
+    /**
+     * 按{@link ArchetypeChunk}遍历匹配archetype，System可以直接按列访问组件
+     * <p>遍历范围与{@link #forEach(Consumer)}相同，遍历期间迁出的行通过{@link ArchetypeChunk#isLiveRow(int)}判断。</p>
+     * @param action 对每个非空存储块执行的操作
+     */
+    public void forEachChunk(ChunkConsumer action) {
+        int archetypeCount = matchingTypes.size();
+        if (archetypeCount == 0) {
+            return;
+        }
+        if (entityManager.isParallelUpdating()) {
+            for (int i = 0; i < archetypeCount; i++) {
+                EntityArchetype entityArchetype = matchingTypes.get(i);
+                forEachChunk(entityArchetype, entityArchetype.rowCount(), action);
+            }
+            return;
+        }
+        int[] rowLimits = beginIteration(archetypeCount);
+        try {
+            for (int i = 0; i < archetypeCount; i++) {
+                forEachChunk(matchingTypes.get(i), rowLimits[i], action);
+            }
+        } finally {
+            endIteration(archetypeCount);
+        }
+    }
+
+    /**
+     * 将匹配archetype的存储块按批次在线程池中并行遍历，遍历期间Entity结构不能变化
+     * <p>遍历范围与{@link #forEachChunk(ChunkConsumer)}相同，批次按存储块的遍历顺序编号，每个批次在一个线程中顺序执行。</p>
+     * @param executor 执行批次的线程池
+     * @param chunksPerBatch 每个批次包含的存储块数量
+     * @param batchActions 在调用线程中按批次顺序调用，为每个批次创建遍历操作，参数为批次序号
+     * @return 批次数量
+     * @throws IllegalStateException 遍历期间直接修改Entity结构时由遍历操作抛出
+     */
+    public int forEachChunkParallel(ForkJoinPool executor, int chunksPerBatch, IntFunction<ChunkConsumer> batchActions) {
+        if (chunksPerBatch <= 0) {
+            throw new IllegalArgumentException("chunksPerBatch must be positive");
+        }
+        int chunkCount = 0;
+        for (EntityArchetype entityArchetype : matchingTypes) {
+            chunkCount += (entityArchetype.rowCount() + EntityArchetype.CHUNK_CAPACITY - 1) / EntityArchetype.CHUNK_CAPACITY;
+        }
+        if (chunkCount == 0) {
+            return 0;
+        }
+        //已经处于并行执行中时可能有多个System同时遍历同一个EntityGroup，不能复用快照，也由外层负责结束并行执行
+        boolean outerParallel = entityManager.isParallelUpdating();
+        ArchetypeChunk[] chunks;
+        int[] rowCounts;
+        if (outerParallel) {
+            chunks = new ArchetypeChunk[chunkCount];
+            rowCounts = new int[chunkCount];
+        } else {
+            if (parallelChunks.length < chunkCount) {
+                parallelChunks = new ArchetypeChunk[chunkCount];
+                parallelRowCounts = new int[chunkCount];
+            }
+            chunks = parallelChunks;
+            rowCounts = parallelRowCounts;
+        }
+        int chunkIndex = 0;
+        for (EntityArchetype entityArchetype : matchingTypes) {
+            int rowLimit = entityArchetype.rowCount();
+            for (int baseRow = 0, i = 0; baseRow < rowLimit; baseRow += EntityArchetype.CHUNK_CAPACITY, i++) {
+                chunks[chunkIndex] = entityArchetype.getChunk(i);
+                rowCounts[chunkIndex] = Math.min(EntityArchetype.CHUNK_CAPACITY, rowLimit - baseRow);
+                chunkIndex++;
+            }
+        }
+        int batchCount = (chunkCount + chunksPerBatch - 1) / chunksPerBatch;
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[batchCount];
+        for (int batch = 0; batch < batchCount; batch++) {
+            int from = batch * chunksPerBatch;
+            int to = Math.min(chunkCount, from + chunksPerBatch);
+            ChunkConsumer action = batchActions.apply(batch);
+            tasks[batch] = ForkJoinTask.adapt(() -> runBatch(chunks, rowCounts, from, to, action));
+        }
+        if (!outerParallel) {
+            entityManager.beginParallelUpdate();
+        }
+        try {
+            if (batchCount == 1) {
+                tasks[0].invoke();
+            } else {
+                executor.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+            }
+        } finally {
+            if (!outerParallel) {
+                entityManager.endParallelUpdate();
+                Arrays.fill(chunks, 0, chunkCount, null);
+            }
+        }
+        return batchCount;
+    }
+
+    private static void runBatch(ArchetypeChunk[] chunks, int[] rowCounts, int from, int to, ChunkConsumer action) {
+        for (int i = from; i < to; i++) {
+            action.accept(chunks[i], rowCounts[i]);
+        }
+    }
+
+    private static void forEachChunk(EntityArchetype entityArchetype, int rowLimit, ChunkConsumer action) {
+        for (int baseRow = 0, chunkIndex = 0; baseRow < rowLimit; baseRow += EntityArchetype.CHUNK_CAPACITY, chunkIndex++) {
+            action.accept(entityArchetype.getChunk(chunkIndex), Math.min(EntityArchetype.CHUNK_CAPACITY, rowLimit - baseRow));
+        }
+    }
+
+    private int[] beginIteration(int archetypeCount) {
+        int[] rowLimits;
+        if (iterationDepth == 0) {
+            if (iterationRowLimits.length < archetypeCount) {
+                iterationRowLimits = new int[archetypeCount];
+            }
+            rowLimits = iterationRowLimits;
+        } else {
+            rowLimits = new int[archetypeCount];
+        }
+        iterationDepth++;
+        for (int i = 0; i < archetypeCount; i++) {
+            EntityArchetype entityArchetype = matchingTypes.get(i);
+            rowLimits[i] = entityArchetype.rowCount();
+            entityArchetype.lockIteration();
+        }
+        return rowLimits;
+    }
+
+    private void endIteration(int archetypeCount) {
+        for (int i = 0; i < archetypeCount; i++) {
+            matchingTypes.get(i).unlockIteration();
+        }
+        iterationDepth--;
+    }
 
     public <T extends EcsComponent> List<T> getComponentDataList(Class<T> tClass) {
         List<T> result = new ArrayList<>();
@@ -50,7 +254,11 @@ public class EntityGroup implements EcsCleanable {
                 logger.error("{} not exist in EntityGroup matchingTypes {}!", tClass.getSimpleName(), this);
                 continue;
             }
-            for(Entity entity : matchEntityArchetype.getEntityList()) {
+            for (int row = 0; row < matchEntityArchetype.rowCount(); row++) {
+                if (!matchEntityArchetype.isLiveRow(row)) {
+                    continue;
+                }
+                Entity entity = matchEntityArchetype.getEntity(row);
                 EcsComponent component = entity.getComponent(tClass);
                 if (null == component) {
                     logger.error("{} not exist in Entity {}!", tClass.getSimpleName(), entity);
@@ -93,12 +301,15 @@ public class EntityGroup implements EcsCleanable {
     public void clean() {
         matchingTypes.forEach(EntityArchetype::clean);
         matchingTypes.clear();
+        entityCount = 0;
         requirementQuery.forEach(ComponentTypeQuery::clean);
         requirementQuery.clear();
     }
 
     public void registerArchetype(EntityArchetype entityArchetype) {
         matchingTypes.add(entityArchetype);
+        entityArchetype.addMatchingGroup(this);
+        entityCount += entityArchetype.size();
     }
 
     public List<ComponentTypeQuery> getRequirementQuery() {
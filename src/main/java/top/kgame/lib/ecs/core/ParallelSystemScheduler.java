@@ -0,0 +1,196 @@
+package top.kgame.lib.ecs.core;
+
+import top.kgame.lib.ecs.EcsSystem;
+import top.kgame.lib.ecs.annotation.UpdateAfterSystem;
+import top.kgame.lib.ecs.annotation.UpdateBeforeSystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SystemGroup子System的并行调度器
+ * <p>排序后的System列表被未声明组件访问的System分隔为多个批次，未声明组件访问的System在调用线程中单独执行。</p>
+ * <p>同一批次内，两个System存在组件读写冲突或者通过注解指定了顺序时，排序靠前的先执行，其余System在线程池中同时执行。</p>
+ */
+public class ParallelSystemScheduler {
+    private final SortableSystemList systemList;
+    private final EcsEntityManager entityManager;
+    private int builtSortVersion = -1;
+    private final List<Stage> stages = new ArrayList<>();
+
+    private static class Stage {
+        private final EcsSystem[] systems;
+        //System下标 -> 需要等待该System执行完成的System下标
+        private final int[][] successors;
+        private final int[] predecessorCounts;
+
+        private Stage(EcsSystem[] systems, int[][] successors, int[] predecessorCounts) {
+            this.systems = systems;
+            this.successors = successors;
+            this.predecessorCounts = predecessorCounts;
+        }
+    }
+
+    public ParallelSystemScheduler(SortableSystemList systemList, EcsEntityManager entityManager) {
+        this.systemList = systemList;
+        this.entityManager = entityManager;
+    }
+
+    public void update(ForkJoinPool executor) {
+        Collection<EcsSystem> sortedSystems = systemList.getSortedSystem();
+        if (builtSortVersion != systemList.getSortVersion()) {
+            buildStages(sortedSystems);
+            builtSortVersion = systemList.getSortVersion();
+        }
+        for (Stage stage : stages) {
+            if (stage.systems.length == 1) {
+                stage.systems[0].tryUpdate();
+            } else {
+                runParallel(stage, executor);
+            }
+        }
+    }
+
+    private void buildStages(Collection<EcsSystem> sortedSystems) {
+        stages.clear();
+        List<EcsSystem> batch = new ArrayList<>();
+        for (EcsSystem system : sortedSystems) {
+            if (system.isComponentAccessDeclared()) {
+                batch.add(system);
+                continue;
+            }
+            addBatch(batch);
+            batch.clear();
+            stages.add(new Stage(new EcsSystem[]{system}, new int[1][0], new int[1]));
+        }
+        addBatch(batch);
+    }
+
+    private void addBatch(List<EcsSystem> batch) {
+        int size = batch.size();
+        if (size == 0) {
+            return;
+        }
+        EcsSystem[] systems = batch.toArray(new EcsSystem[0]);
+        int[][] successors = new int[size][];
+        int[] predecessorCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            int[] buffer = new int[size];
+            int count = 0;
+            for (int j = i + 1; j < size; j++) {
+                if (systems[i].isComponentAccessConflict(systems[j]) || isOrdered(systems[i], systems[j])) {
+                    buffer[count++] = j;
+                    predecessorCounts[j]++;
+                }
+            }
+            successors[i] = Arrays.copyOf(buffer, count);
+        }
+        stages.add(new Stage(systems, successors, predecessorCounts));
+    }
+
+    private static boolean isOrdered(EcsSystem first, EcsSystem second) {
+        UpdateBeforeSystem before = first.getClass().getAnnotation(UpdateBeforeSystem.class);
+        if (before != null && contains(before.systemTypes(), second.getClass())) {
+            return true;
+        }
+        UpdateAfterSystem after = second.getClass().getAnnotation(UpdateAfterSystem.class);
+        return after != null && contains(after.systemTypes(), first.getClass());
+    }
+
+    private static boolean contains(Class<? extends EcsSystem>[] systemTypes, Class<?> systemClass) {
+        for (Class<? extends EcsSystem> systemType : systemTypes) {
+            if (systemType == systemClass) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void runParallel(Stage stage, ForkJoinPool executor) {
+        int size = stage.systems.length;
+        AtomicIntegerArray remaining = new AtomicIntegerArray(stage.predecessorCounts);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(size);
+        entityManager.beginParallelUpdate();
+        try {
+            for (int i = 0; i < size; i++) {
+                if (stage.predecessorCounts[i] == 0) {
+                    submit(stage, i, executor, remaining, failure, latch);
+                }
+            }
+            awaitUninterruptibly(latch);
+        } finally {
+            entityManager.endParallelUpdate();
+        }
+        Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (throwable instanceof Error error) {
+            throw error;
+        }
+        if (throwable != null) {
+            throw new RuntimeException(throwable);
+        }
+        for (EcsSystem system : stage.systems) {
+            system.playBackParallelCommands();
+        }
+    }
+
+    private static void submit(Stage stage, int index, ForkJoinPool executor, AtomicIntegerArray remaining,
+                               AtomicReference<Throwable> failure, CountDownLatch latch) {
+        executor.execute(() -> {
+            try {
+                //已有System执行失败时跳过剩余System，但仍然需要释放后续System
+                if (failure.get() == null) {
+                    stage.systems[index].tryUpdateInParallel();
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                for (int successor : stage.successors[index]) {
+                    if (remaining.decrementAndGet(successor) == 0) {
+                        submit(stage, successor, executor, remaining, failure, latch);
+                    }
+                }
+                latch.countDown();
+            }
+        });
+    }
+
+    /**
+     * 通过{@link ForkJoinPool#managedBlock}等待，调用线程本身是线程池工作线程时线程池会补充线程，不会因为等待而耗尽线程池
+     */
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        ForkJoinPool.ManagedBlocker blocker = new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                latch.await();
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return latch.getCount() == 0;
+            }
+        };
+        boolean interrupted = false;
+        while (true) {
+            try {
+                ForkJoinPool.managedBlock(blocker);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
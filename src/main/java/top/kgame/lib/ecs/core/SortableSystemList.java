@@ -6,136 +6,322 @@ import top.kgame.lib.ecs.EcsCleanable;
 import top.kgame.lib.ecs.EcsSystem;
 import top.kgame.lib.ecs.annotation.UpdateAfterSystem;
 import top.kgame.lib.ecs.annotation.UpdateBeforeSystem;
-import top.kgame.lib.ecs.tools.Heap;
-import top.kgame.lib.ecs.tools.HeapTypeElement;
-import top.kgame.lib.ecs.tools.SystemDependency;
+import top.kgame.lib.ecs.exception.SystemCircularDependencyException;
 
 import java.util.*;
 
+/**
+ * 按{@link UpdateBeforeSystem}、{@link UpdateAfterSystem}排序的System列表
+ * <p>首次排序使用Kahn算法，没有依赖关系的System按类名排序。之后添加System时只重新排序受影响的区间：
+ * 新System最早的后继和最晚的前驱之间的System，区间内保持原有的相对顺序；移除System不会改变其余System的顺序。</p>
+ */
 public class SortableSystemList implements EcsCleanable {
     private static final Logger logger = LogManager.getLogger(SortableSystemList.class);
+    private static final Comparator<Node> NAME_ORDER = Comparator.comparing(node -> node.name);
+    //类型 -> {需要在之后执行的System类型, 需要在之前执行的System类型}，已排除自身
+    private static final ClassValue<Class<?>[][]> DECLARED_ORDERS = new ClassValue<>() {
+        @Override
+        protected Class<?>[][] computeValue(Class<?> type) {
+            return new Class<?>[][]{declaredOrder(type, true), declaredOrder(type, false)};
+        }
+    };
 
     private boolean needSortSystem = true;
+    //是否需要完整排序，首次排序或者上次排序失败时为true
+    private boolean needFullSort = true;
+    //每次重新排序后加1，用于判断排序结果是否变化
+    private int sortVersion = 0;
     private final List<EcsSystem> systemToUpdate = new ArrayList<>();
-    private final Map<Class<?>, Integer> lookupMap = new HashMap<>();
+    private final Map<EcsSystem, Node> nodes = new IdentityHashMap<>();
+    private final Map<Class<?>, Node> lookupMap = new HashMap<>();
+    //上次排序之后添加的System
+    private final List<Node> pendingNodes = new ArrayList<>();
 
-    public void tryReorderSystem() {
-        if (!needSortSystem) {
-            return;
-        }
-        needSortSystem = false;
+    private static final class Node {
+        private final EcsSystem system;
+        private final Class<?> type;
+        private final String name;
+        private final Class<?>[] updateBefore;
+        private final Class<?>[] updateAfter;
+        //需要在当前System之后执行的System
+        private final Set<Node> successors = new LinkedHashSet<>();
+        private final Set<Node> predecessors = new LinkedHashSet<>();
+        private int position = -1;
+        private int remainingPredecessors;
 
-        SystemDependency[] systemDependencies = generateSystemDependencyArray();
-        refreshLookupMap(systemDependencies);
+        private Node(EcsSystem system) {
+            this.system = system;
+            this.type = system.getClass();
+            this.name = type.getName();
+            Class<?>[][] declaredOrder = DECLARED_ORDERS.get(type);
+            this.updateBefore = declaredOrder[0];
+            this.updateAfter = declaredOrder[1];
+        }
 
-        for (SystemDependency systemDependency : systemDependencies) {
-            processBeforeDependency(systemDependencies, systemDependency);
-            processAfterDependency(systemDependencies, systemDependency);
+        private boolean isBefore(Class<?> otherType) {
+            return contains(updateBefore, otherType);
         }
 
-        Heap<HeapTypeElement> systemHeap = new Heap<>(systemDependencies.length);
-        for (int i = 0; i < systemDependencies.length; i++) {
-            SystemDependency currentDependencyInfo = systemDependencies[i];
-            systemHeap.insert(new HeapTypeElement(i, currentDependencyInfo));
+        private boolean isAfter(Class<?> otherType) {
+            return contains(updateAfter, otherType);
         }
+    }
 
-        systemToUpdate.clear();
-        int maxStep = systemDependencies.length * 100;
-        int currentStep = 0;
-        while (!systemHeap.isEmpty()) {
-            HeapTypeElement element = systemHeap.extract();
-            int systemIndex = element.getUnsortedIndex();
-            SystemDependency sd = systemDependencies[systemIndex];
-            if (sd.getAfterSystemCount() == 0) {
-                systemToUpdate.add(sd.getSystem());
-                for (Class<? extends EcsSystem> beforeSystemClass : sd.getUpdateBefore()) {
-                    int beforeIndex = lookupSystemIndex(beforeSystemClass);
-                    if (beforeIndex < 0) {
-                        throw new RuntimeException("Bug in SortSystemUpdateList(), beforeIndex < 0");
-                    }
-                    SystemDependency beforeSD = systemDependencies[beforeIndex];
-                    if (beforeSD.getAfterSystemCount() < 0) {
-                        throw new RuntimeException("Bug in SortSystemUpdateList(), AfterSystemCount{" + beforeSD.getAfterSystemCount() + " < 0");
-                    }
-                    beforeSD.decreaseAfterSystemCount(1);
-                }
-                systemHeap.reorder();
-            } else {
-                throw new RuntimeException("EcsSystem dependency could be stuck in an endless loop! group:" + this.getClass().getSimpleName());
+    private static Class<?>[] declaredOrder(Class<?> type, boolean before) {
+        Class<? extends EcsSystem>[] declaredTypes;
+        if (before) {
+            UpdateBeforeSystem annotation = type.getAnnotation(UpdateBeforeSystem.class);
+            declaredTypes = annotation == null ? null : annotation.systemTypes();
+        } else {
+            UpdateAfterSystem annotation = type.getAnnotation(UpdateAfterSystem.class);
+            declaredTypes = annotation == null ? null : annotation.systemTypes();
+        }
+        if (declaredTypes == null) {
+            return new Class<?>[0];
+        }
+        List<Class<?>> result = new ArrayList<>();
+        for (Class<? extends EcsSystem> declaredType : declaredTypes) {
+            if (declaredType.equals(type)) {
+                logger.warn("Ignoring invalid [{}] attribute on {} because a system cannot be " +
+                        "updated {} itself. ", before ? "UpdateBefore" : "UpdateAfter", type, before ? "before" : "after");
+                continue;
             }
-            if (++currentStep > maxStep) {
-                throw new RuntimeException("EcsSystem dependency could be stuck in an endless loop! group:" + this.getClass().getSimpleName());
+            if (!result.contains(declaredType)) {
+                result.add(declaredType);
             }
         }
+        return result.toArray(new Class<?>[0]);
     }
 
-    private SystemDependency[] generateSystemDependencyArray() {
-        SystemDependency[] systemDependencies = new SystemDependency[systemToUpdate.size()];
-        for (int i = 0; i < systemToUpdate.size(); i++) {
-            EcsSystem system = systemToUpdate.get(i);
-            systemDependencies[i] = new SystemDependency(system);
+    private static boolean contains(Class<?>[] types, Class<?> type) {
+        for (Class<?> item : types) {
+            if (item == type) {
+                return true;
+            }
         }
-        return systemDependencies;
+        return false;
     }
 
-    private void refreshLookupMap(SystemDependency[] systemDependencies) {
-        lookupMap.clear();
-        for (int i = 0; i < systemDependencies.length; i++) {
-            lookupMap.put(systemDependencies[i].getSystemClass(), i);
+    /**
+     * 按依赖关系排序
+     * @throws SystemCircularDependencyException System之间存在循环依赖时抛出
+     */
+    public void tryReorderSystem() {
+        if (!needSortSystem) {
+            return;
+        }
+        if (needFullSort) {
+            fullSort();
+            pendingNodes.clear();
+        } else {
+            //插入失败时剩余的System留给下次完整排序
+            Iterator<Node> iterator = pendingNodes.iterator();
+            while (iterator.hasNext()) {
+                insertNode(iterator.next());
+                iterator.remove();
+            }
+        }
+        needSortSystem = false;
+        sortVersion++;
+    }
+
+    private void fullSort() {
+        //排序失败时保留原列表，下次继续完整排序
+        List<Node> allNodes = new ArrayList<>(systemToUpdate.size() + pendingNodes.size());
+        for (EcsSystem system : systemToUpdate) {
+            allNodes.add(nodes.get(system));
+        }
+        allNodes.addAll(pendingNodes);
+        for (Node node : allNodes) {
+            warnMissingDependency(node);
         }
+        List<Node> sortedNodes = kahnSort(allNodes, NAME_ORDER);
+        systemToUpdate.clear();
+        for (Node node : sortedNodes) {
+            node.position = systemToUpdate.size();
+            systemToUpdate.add(node.system);
+        }
+        needFullSort = false;
     }
 
-    private void processBeforeDependency(SystemDependency[] systemDependencies, SystemDependency currentDependencyInfo) {
-        UpdateBeforeSystem beforeAnnotation = currentDependencyInfo.getSystemClass().getAnnotation(UpdateBeforeSystem.class);
-        if (null == beforeAnnotation) {
+    /**
+     * 将新System插入已排序列表，只重新排序新System最早的后继和最晚的前驱之间的区间
+     */
+    private void insertNode(Node node) {
+        warnMissingDependency(node);
+        int firstSuccessor = systemToUpdate.size();
+        for (Node successor : node.successors) {
+            firstSuccessor = Math.min(firstSuccessor, successor.position);
+        }
+        int lastPredecessor = -1;
+        for (Node predecessor : node.predecessors) {
+            lastPredecessor = Math.max(lastPredecessor, predecessor.position);
+        }
+        if (lastPredecessor < firstSuccessor) {
+            //不需要调整其他System，在允许的区间内按类名选择位置
+            int index = lastPredecessor + 1;
+            while (index < firstSuccessor && nodes.get(systemToUpdate.get(index)).name.compareTo(node.name) < 0) {
+                index++;
+            }
+            systemToUpdate.add(index, node.system);
+            refreshPositions(index);
             return;
         }
-        Class<? extends EcsSystem>[] beforeClass = beforeAnnotation.systemTypes();
-        for (Class<? extends EcsSystem> dependencyClass : beforeClass) {
-            if (dependencyClass.equals(currentDependencyInfo.getSystemClass())) {
-                logger.warn("Ignoring invalid [UpdateBefore] attribute on {} because a system cannot be " +
-                        "updated before itself. ", currentDependencyInfo.getSystemClass());
-                continue;
+        List<Node> region = new ArrayList<>(lastPredecessor - firstSuccessor + 2);
+        for (int i = firstSuccessor; i <= lastPredecessor; i++) {
+            region.add(nodes.get(systemToUpdate.get(i)));
+        }
+        region.add(node);
+        //区间内保持原有的相对顺序，新System尽量靠前
+        node.position = firstSuccessor - 1;
+        List<Node> sortedRegion;
+        try {
+            sortedRegion = kahnSort(region, Comparator.comparingInt(item -> item.position));
+        } catch (SystemCircularDependencyException e) {
+            node.position = -1;
+            needFullSort = true;
+            throw e;
+        }
+        systemToUpdate.add(lastPredecessor + 1, node.system);
+        for (int i = 0; i < sortedRegion.size(); i++) {
+            systemToUpdate.set(firstSuccessor + i, sortedRegion.get(i).system);
+        }
+        refreshPositions(firstSuccessor);
+    }
+
+    private void refreshPositions(int fromIndex) {
+        for (int i = fromIndex; i < systemToUpdate.size(); i++) {
+            nodes.get(systemToUpdate.get(i)).position = i;
+        }
+    }
+
+    /**
+     * Kahn算法，只考虑nodeList内部的依赖
+     * @param order 同时可以执行的System之间的顺序
+     */
+    private static List<Node> kahnSort(List<Node> nodeList, Comparator<Node> order) {
+        Set<Node> nodeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        nodeSet.addAll(nodeList);
+        PriorityQueue<Node> ready = new PriorityQueue<>(Math.max(1, nodeList.size()), order);
+        for (Node node : nodeList) {
+            int count = 0;
+            for (Node predecessor : node.predecessors) {
+                if (nodeSet.contains(predecessor)) {
+                    count++;
+                }
             }
-            int dependencyIndex = lookupSystemIndex(dependencyClass);
-            if (dependencyIndex < 0) {
-                logger.warn("Ignoring invalid [UpdateBefore] attribute on {} because {} not in the same group {}.\n",
-                        currentDependencyInfo.getSystemClass(), dependencyClass, this.getClass());
-                continue;
+            node.remainingPredecessors = count;
+            if (count == 0) {
+                ready.add(node);
             }
-            if (currentDependencyInfo.addBeforeDependency(dependencyClass)) {
-                systemDependencies[dependencyIndex].addAfterCount();
+        }
+        List<Node> sortedNodes = new ArrayList<>(nodeList.size());
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            sortedNodes.add(node);
+            for (Node successor : node.successors) {
+                if (nodeSet.contains(successor) && --successor.remainingPredecessors == 0) {
+                    ready.add(successor);
+                }
             }
-
         }
+        if (sortedNodes.size() != nodeList.size()) {
+            throw new SystemCircularDependencyException(findCycle(nodeList));
+        }
+        return sortedNodes;
     }
 
-    private int lookupSystemIndex(Class<? extends EcsSystem> dependencyClass) {
-        return lookupMap.getOrDefault(dependencyClass, -1);
+    /**
+     * 在排序失败的System中查找一个循环，剩余的System都至少有一个同样剩余的前驱，沿前驱回溯必然回到已经经过的System
+     * @return 按执行顺序排列的循环，首尾为同一个System
+     */
+    private static List<EcsSystem> findCycle(List<Node> nodeList) {
+        Node current = null;
+        for (Node node : nodeList) {
+            if (node.remainingPredecessors > 0) {
+                current = node;
+                break;
+            }
+        }
+        Map<Node, Integer> visitedIndex = new IdentityHashMap<>();
+        List<Node> path = new ArrayList<>();
+        while (current != null && !visitedIndex.containsKey(current)) {
+            visitedIndex.put(current, path.size());
+            path.add(current);
+            Node next = null;
+            for (Node predecessor : current.predecessors) {
+                if (predecessor.remainingPredecessors > 0) {
+                    next = predecessor;
+                    break;
+                }
+            }
+            current = next;
+        }
+        List<EcsSystem> cycle = new ArrayList<>();
+        if (current == null) {
+            return cycle;
+        }
+        //path沿前驱方向，反转为执行方向
+        for (int i = path.size() - 1; i >= visitedIndex.get(current); i--) {
+            cycle.add(path.get(i).system);
+        }
+        cycle.add(cycle.get(0));
+        return cycle;
     }
 
-    private void processAfterDependency(SystemDependency[] systemDependencies, SystemDependency currentDependencyInfo) {
-        UpdateAfterSystem afterAnnotation = currentDependencyInfo.getSystemClass().getAnnotation(UpdateAfterSystem.class);
-        if (null == afterAnnotation) {
-            return;
-        }
-        Class<? extends EcsSystem>[] afterClass = afterAnnotation.systemTypes();
-        for (Class<? extends EcsSystem> dependencyClass : afterClass) {
-            if (dependencyClass.equals(currentDependencyInfo.getSystemClass())) {
-                logger.warn("Ignoring invalid [UpdateAfter] attribute on {} because a system cannot be " +
-                        "updated before itself. ", currentDependencyInfo.getSystemClass());
-                continue;
+    private void warnMissingDependency(Node node) {
+        for (Class<?> beforeClass : node.updateBefore) {
+            if (!lookupMap.containsKey(beforeClass)) {
+                logger.warn("Ignoring invalid [UpdateBefore] attribute on {} because {} not in the same group {}.\n",
+                        node.type, beforeClass, this.getClass());
             }
-            int dependencyIndex = lookupSystemIndex(dependencyClass);
-            if (dependencyIndex < 0) {
+        }
+        for (Class<?> afterClass : node.updateAfter) {
+            if (!lookupMap.containsKey(afterClass)) {
                 logger.warn("Ignoring invalid [UpdateAfter] attribute on {} because {} not in the same group {}.\n",
-                        currentDependencyInfo.getSystemClass(), dependencyClass, this.getClass());
-                continue;
+                        node.type, afterClass, this.getClass());
             }
-            if (systemDependencies[dependencyIndex].addBeforeDependency(currentDependencyInfo.getSystemClass())) {
-                currentDependencyInfo.addAfterCount();
+        }
+    }
+
+    /**
+     * 按已知的排序结果排列System，跳过依赖排序
+     * @param sortedClasses 排序后的System类型，见{@link #getSortedSystemClasses()}
+     * @return System类型与sortedClasses不一致时返回false，列表不变
+     */
+    public boolean applySortedOrder(List<Class<? extends EcsSystem>> sortedClasses) {
+        if (sortedClasses.size() != nodes.size()) {
+            return false;
+        }
+        Node[] sortedNodes = new Node[sortedClasses.size()];
+        for (int i = 0; i < sortedNodes.length; i++) {
+            Node node = lookupMap.get(sortedClasses.get(i));
+            if (node == null) {
+                return false;
             }
+            sortedNodes[i] = node;
+        }
+        systemToUpdate.clear();
+        for (int i = 0; i < sortedNodes.length; i++) {
+            sortedNodes[i].position = i;
+            systemToUpdate.add(sortedNodes[i].system);
         }
+        pendingNodes.clear();
+        needSortSystem = false;
+        needFullSort = false;
+        sortVersion++;
+        return true;
+    }
+
+    /**
+     * @return 排序后的System类型
+     */
+    public List<Class<? extends EcsSystem>> getSortedSystemClasses() {
+        List<Class<? extends EcsSystem>> sortedClasses = new ArrayList<>(systemToUpdate.size());
+        for (EcsSystem system : getSortedSystem()) {
+            sortedClasses.add(system.getClass());
+        }
+        return sortedClasses;
     }
 
     public Collection<EcsSystem> getSortedSystem() {
@@ -143,31 +329,72 @@ public class SortableSystemList implements EcsCleanable {
         return systemToUpdate;
     }
 
+    public int getSortVersion() {
+        return sortVersion;
+    }
+
     @Override
     public void clean() {
         for (EcsSystem system : systemToUpdate) {
             system.clean();
         }
+        for (Node node : pendingNodes) {
+            node.system.clean();
+        }
         systemToUpdate.clear();
+        pendingNodes.clear();
+        nodes.clear();
         lookupMap.clear();
+        needSortSystem = true;
+        needFullSort = true;
     }
 
     public void addSystem(EcsSystem system) {
-        if (systemToUpdate.contains(system)) {
+        if (nodes.containsKey(system)) {
             logger.warn("SortableSystemList addSystem failed! reason: {} already exist!", system.getClass().getSimpleName());
             return;
         }
-        systemToUpdate.add(system);
+        Node node = new Node(system);
+        for (Node other : nodes.values()) {
+            if (node.isBefore(other.type) || other.isAfter(node.type)) {
+                link(node, other);
+            }
+            if (node.isAfter(other.type) || other.isBefore(node.type)) {
+                link(other, node);
+            }
+        }
+        nodes.put(system, node);
+        lookupMap.put(node.type, node);
+        pendingNodes.add(node);
         needSortSystem = true;
     }
 
+    private static void link(Node first, Node second) {
+        first.successors.add(second);
+        second.predecessors.add(first);
+    }
+
     public void removeSystem(EcsSystem system) {
-        if (!systemToUpdate.contains(system)) {
+        Node node = nodes.remove(system);
+        if (node == null) {
             logger.warn("SortableSystemList removeSystem failed! reason: {} not exist!", system.getClass().getSimpleName());
             return;
         }
-        systemToUpdate.remove(system);
-        needSortSystem = true;
+        if (lookupMap.get(node.type) == node) {
+            lookupMap.remove(node.type);
+        }
+        for (Node successor : node.successors) {
+            successor.predecessors.remove(node);
+        }
+        for (Node predecessor : node.predecessors) {
+            predecessor.successors.remove(node);
+        }
+        if (!pendingNodes.remove(node)) {
+            //移除不会破坏其余System的顺序
+            systemToUpdate.remove(node.position);
+            refreshPositions(node.position);
+            sortVersion++;
+        }
     }
 
     @Override
@@ -175,7 +402,6 @@ public class SortableSystemList implements EcsCleanable {
         return "SortableSystemList{" +
                 "needSortSystem=" + needSortSystem +
                 ", systemToUpdate=" + systemToUpdate +
-                ", lookupMap=" + lookupMap +
                 '}';
     }
 }
@@ -0,0 +1,93 @@
+package top.kgame.lib.ecs.core;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * 堆外组件字段的访问句柄，通过{@link StructLayout#getField(String)}获取
+ * <p>读写方法不检查字段类型，调用方需要使用与字段声明一致的方法。</p>
+ */
+public final class StructField {
+    private final Field field;
+    private final int offset;
+    private final int stride;
+
+    StructField(Field field, int offset, int stride) {
+        this.field = field;
+        this.offset = offset;
+        this.stride = stride;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    /**
+     * @return 字段在单行数据中的字节偏移
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getInt(ByteBuffer column, int row) {
+        return column.getInt(row * stride + offset);
+    }
+
+    public void setInt(ByteBuffer column, int row, int value) {
+        column.putInt(row * stride + offset, value);
+    }
+
+    public long getLong(ByteBuffer column, int row) {
+        return column.getLong(row * stride + offset);
+    }
+
+    public void setLong(ByteBuffer column, int row, long value) {
+        column.putLong(row * stride + offset, value);
+    }
+
+    public float getFloat(ByteBuffer column, int row) {
+        return column.getFloat(row * stride + offset);
+    }
+
+    public void setFloat(ByteBuffer column, int row, float value) {
+        column.putFloat(row * stride + offset, value);
+    }
+
+    public double getDouble(ByteBuffer column, int row) {
+        return column.getDouble(row * stride + offset);
+    }
+
+    public void setDouble(ByteBuffer column, int row, double value) {
+        column.putDouble(row * stride + offset, value);
+    }
+
+    void store(Object component, ByteBuffer column, int row) throws IllegalAccessException {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            setInt(column, row, field.getInt(component));
+        } else if (type == long.class) {
+            setLong(column, row, field.getLong(component));
+        } else if (type == float.class) {
+            setFloat(column, row, field.getFloat(component));
+        } else {
+            setDouble(column, row, field.getDouble(component));
+        }
+    }
+
+    void load(Object component, ByteBuffer column, int row) throws IllegalAccessException {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            field.setInt(component, getInt(column, row));
+        } else if (type == long.class) {
+            field.setLong(component, getLong(column, row));
+        } else if (type == float.class) {
+            field.setFloat(component, getFloat(column, row));
+        } else {
+            field.setDouble(component, getDouble(column, row));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package top.kgame.lib.ecs.core;
+
+import top.kgame.lib.ecs.EcsStructComponent;
+import top.kgame.lib.ecs.exception.InvalidEcsTypeException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * {@link EcsStructComponent}的堆外存储布局
+ * <p>字段按大小降序、名称升序排列，行大小补齐到最大字段大小的整数倍，保证每一行的每个字段都按自身大小对齐。
+ * 同一组件类型只会生成一个布局，可以在多个EcsWorld间共享。</p>
+ */
+public final class StructLayout {
+    private static final ClassValue<StructLayout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected StructLayout computeValue(Class<?> type) {
+            return new StructLayout(type);
+        }
+    };
+    private static final Map<Class<?>, Integer> FIELD_SIZES = Map.of(
+            int.class, Integer.BYTES,
+            long.class, Long.BYTES,
+            float.class, Float.BYTES,
+            double.class, Double.BYTES);
+
+    private final Class<?> type;
+    private final Supplier<?> constructor;
+    private final StructField[] fields;
+    private final Map<String, StructField> fieldsByName = new HashMap<>();
+    private final int size;
+
+    private StructLayout(Class<?> type) {
+        this.type = type;
+        List<Field> declaredFields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers)) {
+                continue;
+            }
+            if (Modifier.isFinal(modifiers) || !FIELD_SIZES.containsKey(field.getType()) || !field.trySetAccessible()) {
+                throw new InvalidEcsTypeException(type);
+            }
+            declaredFields.add(field);
+        }
+        declaredFields.sort(Comparator.<Field>comparingInt(field -> FIELD_SIZES.get(field.getType())).reversed()
+                .thenComparing(Field::getName));
+        int stride = 0;
+        int alignment = 1;
+        for (Field field : declaredFields) {
+            int fieldSize = FIELD_SIZES.get(field.getType());
+            stride += fieldSize;
+            alignment = Math.max(alignment, fieldSize);
+        }
+        //行大小补齐，后续行的字段同样对齐
+        stride = (stride + alignment - 1) / alignment * alignment;
+        this.size = stride;
+        this.fields = new StructField[declaredFields.size()];
+        int offset = 0;
+        for (int i = 0; i < fields.length; i++) {
+            Field field = declaredFields.get(i);
+            fields[i] = new StructField(field, offset, stride);
+            fieldsByName.put(field.getName(), fields[i]);
+            offset += FIELD_SIZES.get(field.getType());
+        }
+        try {
+            this.constructor = EcsClassScanner.getConstructor(type);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEcsTypeException(type);
+        }
+    }
+
+    /**
+     * 获取组件类型的布局
+     * @throws InvalidEcsTypeException 组件包含不支持的字段或者没有无参构造函数时抛出
+     */
+    public static StructLayout of(Class<? extends EcsStructComponent> type) {
+        return LAYOUTS.get(type);
+    }
+
+    /**
+     * @return 单行数据的字节数
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param name 组件类中的字段名
+     * @throws IllegalArgumentException 字段不存在时抛出
+     */
+    public StructField getField(String name) {
+        StructField field = fieldsByName.get(name);
+        if (null == field) {
+            throw new IllegalArgumentException("field " + name + " not exist in " + type.getName());
+        }
+        return field;
+    }
+
+    ByteBuffer allocateColumn(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * size).order(ByteOrder.nativeOrder());
+    }
+
+    void store(Object component, ByteBuffer column, int row) {
+        try {
+            for (StructField field : fields) {
+                field.store(component, column, row);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Object load(ByteBuffer column, int row) {
+        try {
+            Object component = constructor.get();
+            for (StructField field : fields) {
+                field.load(component, column, row);
+            }
+            return component;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 复制一行数据，两个存储列必须属于同一布局
+     */
+    void copy(ByteBuffer from, int fromRow, ByteBuffer to, int toRow) {
+        to.put(toRow * size, from, fromRow * size, size);
+    }
+}
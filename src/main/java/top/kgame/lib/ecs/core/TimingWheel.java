@@ -0,0 +1,179 @@
+package top.kgame.lib.ecs.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * <p>共{@link #LEVELS}层，每层64个槽，第k层每个槽的跨度为64^k个时间单位。条目按到期时间和当前时间最高的不同位所在的层放入对应的槽，
+ * 时间推进到槽的起始时间时取出槽中的条目，到期的输出，其余放入更低的层。推进时直接跳过空槽，开销只和经过的非空槽数量有关，和经过的时间长度无关。</p>
+ * <p>非线程安全。</p>
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOT_COUNT = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    private static final class Entry<T> {
+        private final T item;
+        //相对于startTime的到期时间
+        private final long dueTime;
+        private Entry<T> next;
+
+        private Entry(T item, long dueTime) {
+            this.item = item;
+            this.dueTime = dueTime;
+        }
+    }
+
+    private final long startTime;
+    //相对于startTime的当前时间
+    private long currentTime = 0;
+    //层 * SLOT_COUNT + 槽 -> 槽内条目链表
+    private final Entry<?>[] slots = new Entry<?>[LEVELS * SLOT_COUNT];
+    //每层非空槽的位图
+    private final long[] occupiedSlots = new long[LEVELS];
+    //添加时已经到期的条目，下次推进时输出
+    private final List<T> expiredItems = new ArrayList<>();
+    private int size = 0;
+
+    /**
+     * @param startTime 起始时间，之后添加的到期时间和推进的时间都不能早于起始时间
+     */
+    public TimingWheel(long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * 添加条目，到期时间不晚于当前时间的条目在下次推进时输出
+     * @param item 条目
+     * @param dueTime 到期时间
+     */
+    public void add(T item, long dueTime) {
+        long relativeDueTime = dueTime - startTime;
+        if (relativeDueTime <= currentTime) {
+            expiredItems.add(item);
+        } else {
+            place(new Entry<>(item, relativeDueTime));
+        }
+        size++;
+    }
+
+    /**
+     * 推进到指定时间，输出所有到期时间不晚于now的条目，输出顺序不固定
+     * @param now 当前时间，不能早于上次推进的时间
+     * @param expired 到期条目的处理
+     * @throws IllegalArgumentException now早于上次推进的时间时抛出
+     */
+    public void advance(long now, Consumer<? super T> expired) {
+        long target = now - startTime;
+        if (target < currentTime) {
+            throw new IllegalArgumentException("TimingWheel advance failed! reason: time goes backwards. current: "
+                    + (currentTime + startTime) + ", now: " + now);
+        }
+        if (!expiredItems.isEmpty()) {
+            size -= expiredItems.size();
+            for (T item : expiredItems) {
+                expired.accept(item);
+            }
+            expiredItems.clear();
+        }
+        while (size > 0) {
+            long nextSlotTime = nextSlotTime();
+            if (nextSlotTime > target) {
+                break;
+            }
+            currentTime = nextSlotTime;
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                if ((currentTime & lowMask(level)) == 0) {
+                    cascade(level, digit(currentTime, level), expired);
+                }
+            }
+        }
+        currentTime = target;
+    }
+
+    /**
+     * 取出槽中的条目，到期的输出，其余按当前时间重新放入
+     */
+    @SuppressWarnings("unchecked")
+    private void cascade(int level, int slot, Consumer<? super T> expired) {
+        long slotBit = 1L << slot;
+        if ((occupiedSlots[level] & slotBit) == 0) {
+            return;
+        }
+        int slotIndex = level * SLOT_COUNT + slot;
+        Entry<T> entry = (Entry<T>) slots[slotIndex];
+        slots[slotIndex] = null;
+        occupiedSlots[level] &= ~slotBit;
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.next = null;
+            if (entry.dueTime <= currentTime) {
+                size--;
+                expired.accept(entry.item);
+            } else {
+                place(entry);
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * 条目放入到期时间和当前时间最高的不同位所在层，槽的起始时间总是晚于当前时间
+     */
+    @SuppressWarnings("unchecked")
+    private void place(Entry<T> entry) {
+        int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(entry.dueTime ^ currentTime)) / SLOT_BITS;
+        int slot = digit(entry.dueTime, level);
+        int slotIndex = level * SLOT_COUNT + slot;
+        entry.next = (Entry<T>) slots[slotIndex];
+        slots[slotIndex] = entry;
+        occupiedSlots[level] |= 1L << slot;
+    }
+
+    /**
+     * @return 最早的非空槽的起始时间，没有非空槽时返回Long.MAX_VALUE
+     */
+    private long nextSlotTime() {
+        long result = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            long occupied = occupiedSlots[level];
+            if (occupied == 0) {
+                continue;
+            }
+            int currentDigit = digit(currentTime, level);
+            long laterSlots = currentDigit == SLOT_MASK ? 0 : occupied & (-1L << (currentDigit + 1));
+            if (laterSlots == 0) {
+                continue;
+            }
+            int slot = Long.numberOfTrailingZeros(laterSlots);
+            long slotTime = (currentTime & ~lowMask(level + 1)) | ((long) slot << (level * SLOT_BITS));
+            result = Math.min(result, slotTime);
+        }
+        return result;
+    }
+
+    private static int digit(long time, int level) {
+        return (int) ((time >>> (level * SLOT_BITS)) & SLOT_MASK);
+    }
+
+    private static long lowMask(int level) {
+        int bits = level * SLOT_BITS;
+        return bits >= Long.SIZE ? -1L : (1L << bits) - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, null);
+        Arrays.fill(occupiedSlots, 0);
+        expiredItems.clear();
+        size = 0;
+    }
+}
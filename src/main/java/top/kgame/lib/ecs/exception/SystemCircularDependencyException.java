@@ -9,14 +9,22 @@ public class SystemCircularDependencyException extends RuntimeException{
     @Serial
     private static final long serialVersionUID = -3981779857000630542L;
 
+    /**
+     * @param systemChain 按执行顺序排列的循环，首尾为同一个System
+     */
     public SystemCircularDependencyException(Collection<EcsSystem> systemChain) {
         super(generateErrorMsg(systemChain));
     }
 
     private static String generateErrorMsg(Collection<EcsSystem> systems) {
-        StringBuilder stringBuilder = new StringBuilder("The following systems form a circular dependency cycle (check their [UpdateBefore]/[UpdateAfter] attributes):\n");
+        StringBuilder stringBuilder = new StringBuilder("The following systems form a circular dependency cycle (check their [UpdateBefore]/[UpdateAfter] attributes): ");
+        boolean first = true;
         for (EcsSystem ecsSystem : systems) {
-            stringBuilder.append(ecsSystem.getClass().getSimpleName()).append("\n");
+            if (!first) {
+                stringBuilder.append(" -> ");
+            }
+            stringBuilder.append(ecsSystem.getClass().getName());
+            first = false;
         }
         return stringBuilder.toString();
     }
@@ -5,12 +5,36 @@ import top.kgame.lib.ecs.core.EcsEntityManager;
 import top.kgame.lib.ecs.Entity;
 
 import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public abstract class BaseEntityFactory implements EntityFactory {
+    private EcsEntityManager ecsEntityManager;
+
     @Override
     public Entity create(EcsEntityManager ecsEntityManager) {
+        this.ecsEntityManager = ecsEntityManager;
         return ecsEntityManager.createEntityInstance(typeId(), generateComponent());
     }
 
+    /**
+     * 批量创建Entity，archetype只解析一次，Entity直接加入预先分配好的存储块
+     */
+    @Override
+    public void createEntities(EcsEntityManager ecsEntityManager, int count, Consumer<Entity> initializer) {
+        this.ecsEntityManager = ecsEntityManager;
+        ecsEntityManager.createEntityInstances(typeId(), count, this::generateComponent, initializer);
+    }
+
+    /**
+     * 在{@link #generateComponent()}中使用，优先复用对象池中已回收的组件
+     * @param type 组件类型
+     * @param creator 对象池中没有可用组件时用于创建新组件
+     */
+    protected <T extends EcsComponent> T obtainComponent(Class<T> type, Supplier<T> creator) {
+        T component = ecsEntityManager == null ? null : ecsEntityManager.obtainComponent(type);
+        return component == null ? creator.get() : component;
+    }
+
     protected abstract Collection<EcsComponent> generateComponent();
 }
\ No newline at end of file
@@ -3,7 +3,24 @@ package top.kgame.lib.ecs.extensions.entity;
 import top.kgame.lib.ecs.core.EcsEntityManager;
 import top.kgame.lib.ecs.Entity;
 
+import java.util.function.Consumer;
+
 public interface EntityFactory {
     Entity create(EcsEntityManager ecsEntityManager);
+
+    /**
+     * 批量创建Entity，默认逐个调用{@link #create(EcsEntityManager)}
+     * @param count 创建数量
+     * @param initializer 每个Entity创建完成后调用，可以为null
+     */
+    default void createEntities(EcsEntityManager ecsEntityManager, int count, Consumer<Entity> initializer) {
+        for (int i = 0; i < count; i++) {
+            Entity entity = create(ecsEntityManager);
+            if (initializer != null) {
+                initializer.accept(entity);
+            }
+        }
+    }
+
     int typeId();
 }
@@ -6,10 +6,10 @@ import top.kgame.lib.ecs.extensions.component.DestroyingComponent;
 import top.kgame.lib.ecs.Entity;
 import top.kgame.lib.ecs.tools.EcsTools;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 实体销毁系统基类
@@ -20,12 +20,13 @@ import java.util.List;
  */
 public abstract class EcsDestroySystem<T extends EcsComponent> extends EcsLogicSystem {
     private ComponentMatchParam<T> matchComponentMatchType;
+    private final Consumer<Entity> updateEntityAction = this::updateEntity;
 
     @SuppressWarnings("unchecked")
     @Override
     protected Collection<ComponentMatchParam<?>> getMatchComponent() {
-        Type[] parameterizedTypes = EcsTools.generateParameterizedType(this.getClass());
-        matchComponentMatchType = ComponentMatchParam.additive(getWorld(), (Class<T>) parameterizedTypes[0]);
+        Class<?>[] parameterizedTypes = EcsTools.getTypeArguments(this.getClass(), EcsDestroySystem.class);
+        matchComponentMatchType = includeUpdateComponent((Class<T>) parameterizedTypes[0]);
 
         List<ComponentMatchParam<?>> typeList = new ArrayList<>();
         typeList.add(matchComponentMatchType);
@@ -35,10 +36,11 @@ public abstract class EcsDestroySystem<T extends EcsComponent> extends EcsLogicS
 
     @Override
     protected void onUpdate() {
-        Collection<Entity> entities = super.getAllMatchEntity();
-        for (Entity entity : entities) {
-            onEntityDestroy(entity, entity.getComponent(matchComponentMatchType.getType()));
-        }
+        super.forEachMatchEntity(updateEntityAction);
+    }
+
+    private void updateEntity(Entity entity) {
+        onEntityDestroy(entity, entity.getComponent(matchComponentMatchType.getTypeIndex()));
     }
 
     protected abstract void onEntityDestroy(Entity entity, T component);
@@ -5,10 +5,10 @@ import top.kgame.lib.ecs.EcsComponent;
 import top.kgame.lib.ecs.Entity;
 import top.kgame.lib.ecs.tools.EcsTools;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 实体初始化系统基类
@@ -22,6 +22,7 @@ public abstract class EcsInitializeSystem<T extends EcsComponent> extends EcsLog
 
     private ComponentMatchParam<T> matchComponentMatchType;
     private SystemInitFinishSingle systemInitFinishSingle;
+    private final Consumer<Entity> updateEntityAction = this::updateEntity;
 
     public EcsInitializeSystem() {}
 
@@ -36,19 +37,20 @@ public abstract class EcsInitializeSystem<T extends EcsComponent> extends EcsLog
 
     @Override
     protected void onUpdate() {
-        Collection<Entity> entityList = super.getAllMatchEntity();
-        for (Entity entity : entityList) {
-            if (onInitialize(entity, entity.getComponent(matchComponentMatchType.getType()))) {
-                entity.addComponent(systemInitFinishSingle);
-            }
+        super.forEachMatchEntity(updateEntityAction);
+    }
+
+    private void updateEntity(Entity entity) {
+        if (onInitialize(entity, entity.getComponent(matchComponentMatchType.getTypeIndex()))) {
+            entity.addComponent(systemInitFinishSingle);
         }
     }
 
     @SuppressWarnings("unchecked")
     @Override
     protected Collection<ComponentMatchParam<?>> getMatchComponent() {
-        Type[] parameterizedTypes = EcsTools.generateParameterizedType(this.getClass());
-        matchComponentMatchType = ComponentMatchParam.additive(getWorld(), (Class<T>) parameterizedTypes[0]);
+        Class<?>[] parameterizedTypes = EcsTools.getTypeArguments(this.getClass(), EcsInitializeSystem.class);
+        matchComponentMatchType = includeUpdateComponent((Class<T>) parameterizedTypes[0]);
 
         List<ComponentMatchParam<?>> typeList = new ArrayList<>();
         typeList.add(matchComponentMatchType);
@@ -56,6 +58,11 @@ public abstract class EcsInitializeSystem<T extends EcsComponent> extends EcsLog
         return typeList;
     }
 
+    @Override
+    protected boolean isParallelSafe() {
+        return false;
+    }
+
     @Override
     protected void onStart() {}
 
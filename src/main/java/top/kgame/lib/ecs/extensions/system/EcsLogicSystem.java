@@ -1,8 +1,10 @@
 package top.kgame.lib.ecs.extensions.system;
 
+import top.kgame.lib.ecs.annotation.ParallelSafe;
 import top.kgame.lib.ecs.core.ComponentMatchParam;
 import top.kgame.lib.ecs.core.ComponentTypeQuery;
 import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.EcsStructComponent;
 import top.kgame.lib.ecs.EcsSystem;
 
 import java.util.ArrayList;
@@ -19,6 +21,53 @@ abstract class EcsLogicSystem extends EcsSystem {
         matchComponentMatchTypes.addAll(getMatchComponent());
         matchComponentMatchTypes.addAll(extraMatchComponent);
         configEntityFilter(ComponentTypeQuery.generate(matchComponentMatchTypes));
+        if (isParallelSafe()) {
+            configComponentAccess(matchComponentMatchTypes);
+        }
+    }
+
+    /**
+     * 更新时是否只访问匹配的组件且不直接修改Entity结构，是则可以参与并行调度
+     * <p>默认只有标记了{@link ParallelSafe}的System参与并行调度</p>
+     */
+    protected boolean isParallelSafe() {
+        return this.getClass().isAnnotationPresent(ParallelSafe.class);
+    }
+
+    /**
+     * 生成包含type的匹配参数，type在{@link ParallelSafe#readOnly()}中时声明为只读
+     */
+    protected <T extends EcsComponent> ComponentMatchParam<T> includeComponent(Class<T> type) {
+        ParallelSafe parallelSafe = this.getClass().getAnnotation(ParallelSafe.class);
+        if (parallelSafe != null) {
+            for (Class<? extends EcsComponent> readOnlyType : parallelSafe.readOnly()) {
+                if (readOnlyType == type) {
+                    return ComponentMatchParam.readOnly(getWorld(), type);
+                }
+            }
+        }
+        return ComponentMatchParam.additive(getWorld(), type);
+    }
+
+    /**
+     * 生成传给update方法的组件的匹配参数
+     * @throws IllegalArgumentException type是{@link EcsStructComponent}时抛出，堆外组件没有组件对象，
+     * 需要通过{@link #forEachMatchChunk}和{@link top.kgame.lib.ecs.core.StructField}读写
+     */
+    protected <T extends EcsComponent> ComponentMatchParam<T> includeUpdateComponent(Class<T> type) {
+        checkObjectComponent(type);
+        return includeComponent(type);
+    }
+
+    /**
+     * 检查泛型参数指定的组件类型可以按组件对象访问
+     * @throws IllegalArgumentException type是{@link EcsStructComponent}时抛出
+     */
+    protected void checkObjectComponent(Class<? extends EcsComponent> type) {
+        if (EcsStructComponent.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException(this.getClass().getName() + " can not match EcsStructComponent "
+                    + type.getName() + " by component object, use forEachMatchChunk and StructField instead");
+        }
     }
 
     public List<ComponentMatchParam<?>> getExtraMatchComponent() {
@@ -29,7 +78,7 @@ abstract class EcsLogicSystem extends EcsSystem {
         Collection<Class<? extends EcsComponent>> requireComponent = getExtraRequirementComponent();
         if (requireComponent != null && !requireComponent.isEmpty()) {
             for (Class<? extends EcsComponent> clazz : requireComponent) {
-                extraMatchComponent.add(ComponentMatchParam.additive(getWorld(), clazz));
+                extraMatchComponent.add(includeComponent(clazz));
             }
         }
         Collection<Class<? extends EcsComponent>> excludeComponent = getExtraExcludeComponent();
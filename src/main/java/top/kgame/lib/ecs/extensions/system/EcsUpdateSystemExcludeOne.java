@@ -5,10 +5,10 @@ import top.kgame.lib.ecs.Entity;
 import top.kgame.lib.ecs.core.ComponentMatchParam;
 import top.kgame.lib.ecs.tools.EcsTools;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 排除单个组件的更新系统基类
@@ -18,10 +18,13 @@ import java.util.List;
  * @param <T> 要排除的组件类型
  */
 public abstract class EcsUpdateSystemExcludeOne<T extends EcsComponent> extends EcsLogicSystem {
+    private final Consumer<Entity> updateEntityAction = this::update;
+
     @SuppressWarnings("unchecked")
     @Override
     protected Collection<ComponentMatchParam<?>> getMatchComponent() {
-        Type[] parameterizedTypes = EcsTools.generateParameterizedType(this.getClass());
+        Class<?>[] parameterizedTypes = EcsTools.getTypeArguments(this.getClass(), EcsUpdateSystemExcludeOne.class);
+        checkObjectComponent((Class<T>) parameterizedTypes[0]);
         ComponentMatchParam<T> matchComponentMatchType = ComponentMatchParam.subtractive(getWorld(), (Class<T>) parameterizedTypes[0]);
 
         List<ComponentMatchParam<?>> typeList = new ArrayList<>();
@@ -31,10 +34,7 @@ public abstract class EcsUpdateSystemExcludeOne<T extends EcsComponent> extends
 
     @Override
     protected void onUpdate() {
-        Collection<Entity> entities = super.getAllMatchEntity();
-        for (Entity entity : entities) {
-            update(entity);
-        }
+        super.forEachMatchEntity(updateEntityAction);
     }
 
     protected abstract void update(Entity entity);
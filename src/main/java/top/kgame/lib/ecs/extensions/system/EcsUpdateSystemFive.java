@@ -2,10 +2,11 @@ package top.kgame.lib.ecs.extensions.system;
 
 import top.kgame.lib.ecs.EcsComponent;
 import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.ArchetypeChunk;
 import top.kgame.lib.ecs.core.ComponentMatchParam;
+import top.kgame.lib.ecs.core.EntityGroup;
 import top.kgame.lib.ecs.tools.EcsTools;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -29,16 +30,17 @@ public abstract class EcsUpdateSystemFive<T1 extends EcsComponent,
     private ComponentMatchParam<T3> componentMatchType3;
     private ComponentMatchParam<T4> componentMatchType4;
     private ComponentMatchParam<T5> componentMatchType5;
+    private final EntityGroup.ChunkConsumer updateChunkAction = this::updateChunk;
 
     @SuppressWarnings("unchecked")
     @Override
     protected Collection<ComponentMatchParam<?>> getMatchComponent() {
-        Type[] parameterizedTypes = EcsTools.generateParameterizedType(this.getClass());
-        componentMatchType1 = ComponentMatchParam.additive(getWorld(), (Class<T1>) parameterizedTypes[0]);
-        componentMatchType2 = ComponentMatchParam.additive(getWorld(), (Class<T2>) parameterizedTypes[1]);
-        componentMatchType3 = ComponentMatchParam.additive(getWorld(), (Class<T3>) parameterizedTypes[2]);
-        componentMatchType4 = ComponentMatchParam.additive(getWorld(), (Class<T4>) parameterizedTypes[3]);
-        componentMatchType5 = ComponentMatchParam.additive(getWorld(), (Class<T5>) parameterizedTypes[4]);
+        Class<?>[] parameterizedTypes = EcsTools.getTypeArguments(this.getClass(), EcsUpdateSystemFive.class);
+        componentMatchType1 = includeUpdateComponent((Class<T1>) parameterizedTypes[0]);
+        componentMatchType2 = includeUpdateComponent((Class<T2>) parameterizedTypes[1]);
+        componentMatchType3 = includeUpdateComponent((Class<T3>) parameterizedTypes[2]);
+        componentMatchType4 = includeUpdateComponent((Class<T4>) parameterizedTypes[3]);
+        componentMatchType5 = includeUpdateComponent((Class<T5>) parameterizedTypes[4]);
 
         List<ComponentMatchParam<?>> componentMatchTypes = new ArrayList<>();
         componentMatchTypes.add(componentMatchType1);
@@ -51,15 +53,35 @@ public abstract class EcsUpdateSystemFive<T1 extends EcsComponent,
 
     @Override
     protected void onUpdate() {
-        for (Entity entity : super.getAllMatchEntity()) {
-            update(entity, entity.getComponent(componentMatchType1.getType()),
-                    entity.getComponent(componentMatchType2.getType()),
-                    entity.getComponent(componentMatchType3.getType()),
-                    entity.getComponent(componentMatchType4.getType()),
-                    entity.getComponent(componentMatchType5.getType()));
+        super.forEachMatchChunk(updateChunkAction);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateChunk(ArchetypeChunk chunk, int rowCount) {
+        Entity[] entities = chunk.getEntities();
+        EcsComponent[] column1 = chunk.getColumn(componentMatchType1.getTypeIndex());
+        EcsComponent[] column2 = chunk.getColumn(componentMatchType2.getTypeIndex());
+        EcsComponent[] column3 = chunk.getColumn(componentMatchType3.getTypeIndex());
+        EcsComponent[] column4 = chunk.getColumn(componentMatchType4.getTypeIndex());
+        EcsComponent[] column5 = chunk.getColumn(componentMatchType5.getTypeIndex());
+        for (int row = 0; row < rowCount; row++) {
+            if (chunk.isLiveRow(row)) {
+                update(entities[row], (T1) column1[row], (T2) column2[row], (T3) column3[row], (T4) column4[row], (T5) column5[row]);
+            } else {
+                //遍历期间已迁出archetype，列中的数据可能已过期
+                updateEntity(entities[row]);
+            }
         }
     }
 
+    private void updateEntity(Entity entity) {
+        update(entity, entity.getComponent(componentMatchType1.getTypeIndex()),
+                entity.getComponent(componentMatchType2.getTypeIndex()),
+                entity.getComponent(componentMatchType3.getTypeIndex()),
+                entity.getComponent(componentMatchType4.getTypeIndex()),
+                entity.getComponent(componentMatchType5.getTypeIndex()));
+    }
+
     protected abstract void update(Entity entity, T1 component, T2 component1, T3 component2, T4 component3, T5 component5);
 
     @Override
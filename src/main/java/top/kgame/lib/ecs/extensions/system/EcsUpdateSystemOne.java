@@ -2,10 +2,11 @@ package top.kgame.lib.ecs.extensions.system;
 
 import top.kgame.lib.ecs.EcsComponent;
 import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.ArchetypeChunk;
 import top.kgame.lib.ecs.core.ComponentMatchParam;
+import top.kgame.lib.ecs.core.EntityGroup;
 import top.kgame.lib.ecs.tools.EcsTools;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -20,12 +21,13 @@ import java.util.List;
  */
 public abstract class EcsUpdateSystemOne<T extends EcsComponent> extends EcsLogicSystem {
     private ComponentMatchParam<T> matchComponentMatchType;
+    private final EntityGroup.ChunkConsumer updateChunkAction = this::updateChunk;
 
     @SuppressWarnings("unchecked")
     @Override
     protected Collection<ComponentMatchParam<?>> getMatchComponent() {
-        Type[] parameterizedTypes = EcsTools.generateParameterizedType(this.getClass());
-        matchComponentMatchType = ComponentMatchParam.additive(getWorld(), (Class<T>) parameterizedTypes[0]);
+        Class<?>[] parameterizedTypes = EcsTools.getTypeArguments(this.getClass(), EcsUpdateSystemOne.class);
+        matchComponentMatchType = includeUpdateComponent((Class<T>) parameterizedTypes[0]);
 
         List<ComponentMatchParam<?>> typeList = new ArrayList<>();
         typeList.add(matchComponentMatchType);
@@ -34,12 +36,27 @@ public abstract class EcsUpdateSystemOne<T extends EcsComponent> extends EcsLogi
 
     @Override
     protected void onUpdate() {
-        Collection<Entity> entities = super.getAllMatchEntity();
-        for (Entity entity : entities) {
-            update(entity, entity.getComponent(matchComponentMatchType.getType()));
+        super.forEachMatchChunk(updateChunkAction);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateChunk(ArchetypeChunk chunk, int rowCount) {
+        Entity[] entities = chunk.getEntities();
+        EcsComponent[] column = chunk.getColumn(matchComponentMatchType.getTypeIndex());
+        for (int row = 0; row < rowCount; row++) {
+            if (chunk.isLiveRow(row)) {
+                update(entities[row], (T) column[row]);
+            } else {
+                //遍历期间已迁出archetype，列中的数据可能已过期
+                updateEntity(entities[row]);
+            }
         }
     }
 
+    private void updateEntity(Entity entity) {
+        update(entity, entity.getComponent(matchComponentMatchType.getTypeIndex()));
+    }
+
     protected abstract void update(Entity entity, T component);
 
     @Override
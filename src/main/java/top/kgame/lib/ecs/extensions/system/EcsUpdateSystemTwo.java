@@ -2,10 +2,11 @@ package top.kgame.lib.ecs.extensions.system;
 
 import top.kgame.lib.ecs.EcsComponent;
 import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.ArchetypeChunk;
 import top.kgame.lib.ecs.core.ComponentMatchParam;
+import top.kgame.lib.ecs.core.EntityGroup;
 import top.kgame.lib.ecs.tools.EcsTools;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -22,13 +23,14 @@ import java.util.List;
 public abstract class EcsUpdateSystemTwo<T1 extends EcsComponent, T2 extends EcsComponent> extends EcsLogicSystem {
     private ComponentMatchParam<T1> componentMatchType1;
     private ComponentMatchParam<T2> componentMatchType2;
+    private final EntityGroup.ChunkConsumer updateChunkAction = this::updateChunk;
 
     @SuppressWarnings("unchecked")
     @Override
     protected Collection<ComponentMatchParam<?>> getMatchComponent() {
-        Type[] parameterizedTypes = EcsTools.generateParameterizedType(this.getClass());
-        componentMatchType1 = ComponentMatchParam.additive(getWorld(), (Class<T1>) parameterizedTypes[0]);
-        componentMatchType2 = ComponentMatchParam.additive(getWorld(), (Class<T2>) parameterizedTypes[1]);
+        Class<?>[] parameterizedTypes = EcsTools.getTypeArguments(this.getClass(), EcsUpdateSystemTwo.class);
+        componentMatchType1 = includeUpdateComponent((Class<T1>) parameterizedTypes[0]);
+        componentMatchType2 = includeUpdateComponent((Class<T2>) parameterizedTypes[1]);
 
         List<ComponentMatchParam<?>> componentMatchTypes = new ArrayList<>();
         componentMatchTypes.add(componentMatchType1);
@@ -38,12 +40,29 @@ public abstract class EcsUpdateSystemTwo<T1 extends EcsComponent, T2 extends Ecs
 
     @Override
     protected void onUpdate() {
-        for (Entity entity : super.getAllMatchEntity()) {
-            update(entity, entity.getComponent(componentMatchType1.getType()),
-                    entity.getComponent(componentMatchType2.getType()));
+        super.forEachMatchChunk(updateChunkAction);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateChunk(ArchetypeChunk chunk, int rowCount) {
+        Entity[] entities = chunk.getEntities();
+        EcsComponent[] column1 = chunk.getColumn(componentMatchType1.getTypeIndex());
+        EcsComponent[] column2 = chunk.getColumn(componentMatchType2.getTypeIndex());
+        for (int row = 0; row < rowCount; row++) {
+            if (chunk.isLiveRow(row)) {
+                update(entities[row], (T1) column1[row], (T2) column2[row]);
+            } else {
+                //遍历期间已迁出archetype，列中的数据可能已过期
+                updateEntity(entities[row]);
+            }
         }
     }
 
+    private void updateEntity(Entity entity) {
+        update(entity, entity.getComponent(componentMatchType1.getTypeIndex()),
+                entity.getComponent(componentMatchType2.getTypeIndex()));
+    }
+
     protected abstract void update(Entity entity, T1 component, T2 component1);
 
     @Override
@@ -0,0 +1,213 @@
+package top.kgame.lib.ecs.processor;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.EcsSystem;
+import top.kgame.lib.ecs.annotation.UpdateInGroup;
+import top.kgame.lib.ecs.core.EcsRegistry;
+import top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 编译期生成{@link EcsRegistry}注册表，记录所有非抽象的System（及其所属SystemGroup）、组件和标记了{@link EntityFactoryAttribute}的类
+ * <p>处理器不通过META-INF/services注册，需要在依赖本库的项目中显式启用（javac的-processor参数或maven-compiler-plugin的annotationProcessors），
+ * 未启用时运行时回退为扫描classpath。处理器只认领本库自己的注解，不影响其他注解处理器和-Xlint:processing检查。</p>
+ * <p>匿名类和局部类只有在javac完成类型分析后才有类名，所以在{@link #init(ProcessingEnvironment)}中注册javac的{@link TaskListener}，
+ * 在每个类分析完成后收集，和源码中是否使用了本库注解无关，编译结束时写入注册表；非javac编译器不生成注册表，运行时回退为扫描classpath。</p>
+ * <p>增量编译时保留上次生成的、未重新编译且仍然存在的类型记录。
+ * 类型合法性（SystemGroup类型、EntityFactory类型）仍由{@link top.kgame.lib.ecs.core.EcsClassScanner}在加载时校验。</p>
+ */
+@SupportedAnnotationTypes({"top.kgame.lib.ecs.annotation.*", "top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute"})
+public class EcsRegistryProcessor extends AbstractProcessor implements TaskListener {
+    //类名 -> 注册表记录，按类名排序保证组件类型索引稳定
+    private final Map<String, String> systems = new TreeMap<>();
+    private final Map<String, String> components = new TreeMap<>();
+    private final Map<String, String> factories = new TreeMap<>();
+    //本次编译的顶层类名
+    private final Set<String> compiledClasses = new HashSet<>();
+    private Elements elements;
+    private Types types;
+    private Trees trees;
+    private TypeMirror systemType;
+    private TypeMirror componentType;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        systemType = erasure(EcsSystem.class.getCanonicalName());
+        componentType = erasure(EcsComponent.class.getCanonicalName());
+        if (systemType == null || componentType == null) {
+            return;
+        }
+        try {
+            JavacTask.instance(processingEnv).addTaskListener(this);
+            trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "ecs registry requires javac, skip generating");
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        //类型在TaskListener中收集，这里只认领本库注解
+        return true;
+    }
+
+    @Override
+    public void finished(TaskEvent event) {
+        if (event.getKind() == TaskEvent.Kind.ANALYZE && event.getTypeElement() != null) {
+            compiledClasses.add(elements.getBinaryName(event.getTypeElement()).toString());
+            TreePath path = trees.getPath(event.getTypeElement());
+            if (path != null) {
+                new TreePathScanner<Void, Void>() {
+                    @Override
+                    public Void visitClass(ClassTree node, Void unused) {
+                        if (trees.getElement(getCurrentPath()) instanceof TypeElement typeElement) {
+                            collect(typeElement);
+                        }
+                        return super.visitClass(node, unused);
+                    }
+                }.scan(path, null);
+            }
+        } else if (event.getKind() == TaskEvent.Kind.COMPILATION) {
+            writeRegistry();
+        }
+    }
+
+    private TypeMirror erasure(String canonicalName) {
+        TypeElement typeElement = elements.getTypeElement(canonicalName);
+        return typeElement == null ? null : types.erasure(typeElement.asType());
+    }
+
+    private void collect(TypeElement typeElement) {
+        String className = elements.getBinaryName(typeElement).toString();
+        if (typeElement.getAnnotation(EntityFactoryAttribute.class) != null) {
+            factories.put(className, EcsRegistry.KIND_FACTORY + " " + className);
+        }
+        if (typeElement.getKind().isClass() && !typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            TypeMirror type = types.erasure(typeElement.asType());
+            if (types.isAssignable(type, systemType)) {
+                systems.put(className, EcsRegistry.KIND_SYSTEM + " " + className + " " + getGroupName(typeElement));
+            }
+            if (types.isAssignable(type, componentType)) {
+                components.put(className, EcsRegistry.KIND_COMPONENT + " " + className);
+            }
+        }
+    }
+
+    private String getGroupName(TypeElement typeElement) {
+        String annotationName = UpdateInGroup.class.getCanonicalName();
+        for (AnnotationMirror mirror : typeElement.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(annotationName)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value")
+                        && entry.getValue().getValue() instanceof DeclaredType groupType) {
+                    return elements.getBinaryName((TypeElement) groupType.asElement()).toString();
+                }
+            }
+        }
+        return EcsRegistry.NO_GROUP;
+    }
+
+    private void writeRegistry() {
+        mergePreviousRegistry();
+        if (systems.isEmpty() && components.isEmpty() && factories.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", EcsRegistry.RESOURCE_NAME);
+            try (Writer writer = resource.openWriter()) {
+                writer.write("# generated by " + EcsRegistryProcessor.class.getName() + "\n");
+                for (String line : systems.values()) {
+                    writer.write(line + "\n");
+                }
+                for (String line : components.values()) {
+                    writer.write(line + "\n");
+                }
+                for (String line : factories.values()) {
+                    writer.write(line + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "write ecs registry failed: " + e);
+        }
+    }
+
+    /**
+     * 增量编译时只有部分源文件参与编译，保留上次生成的、顶层类未重新编译且仍然存在的类型记录
+     */
+    private void mergePreviousRegistry() {
+        FileObject previous;
+        try {
+            previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", EcsRegistry.RESOURCE_NAME);
+        } catch (IOException | IllegalArgumentException e) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(previous.openReader(true))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 2 || fields[0].startsWith("#")) {
+                    continue;
+                }
+                String className = fields[1];
+                int nestedIndex = className.indexOf('$');
+                String topLevelName = nestedIndex < 0 ? className : className.substring(0, nestedIndex);
+                if (compiledClasses.contains(topLevelName) || elements.getTypeElement(topLevelName) == null) {
+                    continue;
+                }
+                Map<String, String> records = switch (fields[0]) {
+                    case EcsRegistry.KIND_SYSTEM -> systems;
+                    case EcsRegistry.KIND_COMPONENT -> components;
+                    case EcsRegistry.KIND_FACTORY -> factories;
+                    default -> null;
+                };
+                if (records != null) {
+                    records.putIfAbsent(className, line.trim());
+                }
+            }
+        } catch (IOException e) {
+            //不存在上次生成的注册表
+        }
+    }
+}
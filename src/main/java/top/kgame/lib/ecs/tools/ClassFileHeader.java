@@ -0,0 +1,201 @@
+package top.kgame.lib.ecs.tools;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+
+/**
+ * class文件头信息：类名、访问标志、父类、接口和类上的运行时注解
+ * <p>直接解析class文件常量池，不需要加载类，用于扫描时在加载类之前过滤。</p>
+ */
+final class ClassFileHeader {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String[] EMPTY = new String[0];
+    private static final String NONE = "-";
+
+    private final String name;
+    private final int accessFlags;
+    private final String superName;
+    private final String[] interfaces;
+    private final String[] annotations;
+
+    ClassFileHeader(String name, int accessFlags, String superName, String[] interfaces, String[] annotations) {
+        this.name = name;
+        this.accessFlags = accessFlags;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.annotations = annotations;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return 父类名，java.lang.Object和module-info返回null
+     */
+    String getSuperName() {
+        return superName;
+    }
+
+    String[] getInterfaces() {
+        return interfaces;
+    }
+
+    boolean isAbstract() {
+        return Modifier.isAbstract(accessFlags);
+    }
+
+    boolean hasAnnotation(String annotationName) {
+        for (String annotation : annotations) {
+            if (annotation.equals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析class文件
+     * @param input class文件内容，不会关闭
+     * @throws IOException 读取失败或者不是合法的class文件
+     */
+    static ClassFileHeader parse(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int constantCount = in.readUnsignedShort();
+        String[] utf8 = new String[constantCount];
+        int[] classNameIndex = new int[constantCount];
+        for (int i = 1; i < constantCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> utf8[i] = in.readUTF();
+                case 7 -> classNameIndex[i] = in.readUnsignedShort();
+                case 8, 16, 19, 20 -> in.readUnsignedShort();
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.readInt();
+                case 15 -> {
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                }
+                case 5, 6 -> {
+                    in.readLong();
+                    //long和double占用两个常量池位置
+                    i++;
+                }
+                default -> throw new IOException("unknown constant pool tag " + tag);
+            }
+        }
+        int accessFlags = in.readUnsignedShort();
+        String name = className(utf8, classNameIndex, in.readUnsignedShort());
+        String superName = className(utf8, classNameIndex, in.readUnsignedShort());
+        int interfaceCount = in.readUnsignedShort();
+        String[] interfaces = interfaceCount == 0 ? EMPTY : new String[interfaceCount];
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces[i] = className(utf8, classNameIndex, in.readUnsignedShort());
+        }
+        skipMembers(in);
+        skipMembers(in);
+        String[] annotations = EMPTY;
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                annotations = readAnnotationTypes(in, utf8);
+            } else {
+                in.skipNBytes(length);
+            }
+        }
+        return new ClassFileHeader(name, accessFlags, superName, interfaces, annotations);
+    }
+
+    private static String className(String[] utf8, int[] classNameIndex, int index) {
+        if (index == 0) {
+            return null;
+        }
+        return utf8[classNameIndex[index]].replace('/', '.');
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            //access_flags, name_index, descriptor_index
+            in.skipNBytes(6);
+            int attributeCount = in.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                in.readUnsignedShort();
+                in.skipNBytes(in.readInt() & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    private static String[] readAnnotationTypes(DataInputStream in, String[] utf8) throws IOException {
+        int count = in.readUnsignedShort();
+        String[] types = new String[count];
+        for (int i = 0; i < count; i++) {
+            types[i] = readAnnotation(in, utf8);
+        }
+        return types;
+    }
+
+    /**
+     * @return 注解类型名
+     */
+    private static String readAnnotation(DataInputStream in, String[] utf8) throws IOException {
+        String descriptor = utf8[in.readUnsignedShort()];
+        int pairCount = in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            in.readUnsignedShort();
+            skipElementValue(in, utf8);
+        }
+        //描述符格式为Lpackage/Name;
+        return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+    }
+
+    private static void skipElementValue(DataInputStream in, String[] utf8) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' -> in.readUnsignedShort();
+            case 'e' -> in.readInt();
+            case '@' -> readAnnotation(in, utf8);
+            case '[' -> {
+                int count = in.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue(in, utf8);
+                }
+            }
+            default -> throw new IOException("unknown annotation element tag " + (char) tag);
+        }
+    }
+
+    /**
+     * @return 单行文本，用于扫描结果缓存
+     */
+    String toLine() {
+        return name + ' ' + accessFlags + ' ' + (superName == null ? NONE : superName)
+                + ' ' + join(interfaces) + ' ' + join(annotations);
+    }
+
+    static ClassFileHeader fromLine(String line) {
+        String[] fields = line.split(" ");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("invalid class header line: " + line);
+        }
+        return new ClassFileHeader(fields[0], Integer.parseInt(fields[1]),
+                NONE.equals(fields[2]) ? null : fields[2], split(fields[3]), split(fields[4]));
+    }
+
+    private static String join(String[] names) {
+        return names.length == 0 ? NONE : String.join(",", names);
+    }
+
+    private static String[] split(String names) {
+        return NONE.equals(names) ? EMPTY : names.split(",");
+    }
+}
@@ -0,0 +1,125 @@
+package top.kgame.lib.ecs.tools;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * jar包扫描结果的磁盘缓存，以jar内容的SHA-256和包名为键，jar不变时后续启动直接读取缓存的class文件头
+ * <p>默认关闭，通过系统属性{@link #CACHE_DIR_PROPERTY}指定缓存目录后开启。缓存文件决定加载哪些类，目录应只允许当前用户写入，
+ * 支持POSIX权限的文件系统上新建的缓存目录权限为rwx------。目录中的扫描不缓存。</p>
+ */
+final class ClassScanCache {
+    private static final Logger logger = LogManager.getLogger(ClassScanCache.class);
+    static final String CACHE_DIR_PROPERTY = "top.kgame.ecs.scanCacheDir";
+    private static final String CACHE_FILE_SUFFIX = ".scan";
+
+    //jar路径 -> 内容哈希，同一进程内只计算一次
+    private static final Map<Path, String> JAR_HASHES = new ConcurrentHashMap<>();
+
+    private ClassScanCache() {}
+
+    private static Path getCacheDir() {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        return dir == null || dir.isEmpty() ? null : Paths.get(dir);
+    }
+
+    private static Path getCacheFile(Path jarPath, String packageName) {
+        Path cacheDir = getCacheDir();
+        if (cacheDir == null) {
+            return null;
+        }
+        String hash = JAR_HASHES.computeIfAbsent(jarPath, ClassScanCache::hash);
+        return cacheDir.resolve(hash + "-" + packageName + CACHE_FILE_SUFFIX);
+    }
+
+    /**
+     * @return 缓存的class文件头，缓存关闭或者不存在时返回null
+     */
+    static List<ClassFileHeader> load(Path jarPath, String packageName) {
+        try {
+            Path cacheFile = getCacheFile(jarPath, packageName);
+            if (cacheFile == null || !Files.isRegularFile(cacheFile)) {
+                return null;
+            }
+            List<ClassFileHeader> headers = new ArrayList<>();
+            for (String line : Files.readAllLines(cacheFile, StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) {
+                    headers.add(ClassFileHeader.fromLine(line));
+                }
+            }
+            return headers;
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            logger.warn("load class scan cache of {} failed!", jarPath, e);
+            return null;
+        }
+    }
+
+    static void store(Path jarPath, String packageName, List<ClassFileHeader> headers) {
+        try {
+            Path cacheFile = getCacheFile(jarPath, packageName);
+            if (cacheFile == null) {
+                return;
+            }
+            createCacheDir(cacheFile.getParent());
+            List<String> lines = new ArrayList<>(headers.size());
+            for (ClassFileHeader header : headers) {
+                lines.add(header.toLine());
+            }
+            //先写临时文件再替换，多个进程同时启动时不会读到不完整的缓存
+            Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            try {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("store class scan cache of {} failed!", jarPath, e);
+        }
+    }
+
+    private static void createCacheDir(Path cacheDir) throws IOException {
+        if (Files.isDirectory(cacheDir)) {
+            return;
+        }
+        if (cacheDir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(cacheDir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(cacheDir);
+        }
+    }
+
+    private static String hash(Path jarPath) {
+        try (InputStream in = Files.newInputStream(jarPath)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
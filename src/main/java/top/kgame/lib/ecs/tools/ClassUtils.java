@@ -3,30 +3,54 @@ package top.kgame.lib.ecs.tools;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
 import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.jar.JarEntry;
+import java.util.function.Predicate;
 import java.util.jar.JarFile;
 
+/**
+ * 包扫描工具
+ * <p>扫描时先解析class文件头（见{@link ClassFileHeader}），按父类型和注解过滤后才加载匹配的类，加载时不执行类的静态初始化。
+ * 开启缓存后jar包的扫描结果会缓存到磁盘，见{@link ClassScanCache}。</p>
+ */
 public class ClassUtils {
     private static final Logger logger = LogManager.getLogger(ClassUtils.class);
+    private static final String CLASS_SUFFIX = ".class";
 
     /**
      * 从包中获取指定注解的class
      */
     public static Set<Class<?>> getClassByAnnotation(String packageName, Class<? extends Annotation> annoClass) {
+        return getClassByAnnotation(packageName, annoClass, resource -> true);
+    }
+
+    /**
+     * 从包中获取指定注解的class，只扫描resourceFilter接受的包资源（包在各个jar或目录中的URL）
+     */
+    public static Set<Class<?>> getClassByAnnotation(String packageName, Class<? extends Annotation> annoClass,
+                                                     Predicate<URL> resourceFilter) {
         Set<Class<?>> targetClasses = new HashSet<>();
         try {
-            Set<Class<?>> packageClasses = getClassesFromPackage(packageName);
-            for (Class<?> klass : packageClasses) {
-                Annotation targetAnnotation = klass.getAnnotation(annoClass);
-                if (null != targetAnnotation) {
-                    targetClasses.add(klass);
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            Map<String, ClassFileHeader> headers = scanPackage(packageName, classLoader, resourceFilter);
+            HeaderResolver resolver = new HeaderResolver(classLoader, headers);
+            boolean inherited = annoClass.isAnnotationPresent(Inherited.class);
+            for (ClassFileHeader header : headers.values()) {
+                if (hasAnnotation(header, annoClass.getName(), inherited, resolver)) {
+                    targetClasses.add(Class.forName(header.getName(), false, classLoader));
                 }
             }
         } catch (IOException | ClassNotFoundException e) {
@@ -36,106 +60,151 @@ public class ClassUtils {
     }
 
     /**
-     * 扫描指定包中的所有类
+     * 扫描指定包中的所有类，只加载不初始化
      * @param packageName 要扫描的包名.
      * @return 指定包中的所有class
      * @throws IOException
      * @throws ClassNotFoundException
      */
     public static Set<Class<?>> getClassesFromPackage(String packageName) throws IOException, ClassNotFoundException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
         Set<Class<?>> classes = new HashSet<>();
+        for (String className : scanPackage(packageName, classLoader, resource -> true).keySet()) {
+            classes.add(Class.forName(className, false, classLoader));
+        }
+        return classes;
+    }
 
-        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-        String path = packageName.replace('.', File.separatorChar);
+    /**
+     * 读取包中所有class文件头
+     * @return 类名 -> class文件头
+     */
+    private static Map<String, ClassFileHeader> scanPackage(String packageName, ClassLoader classLoader,
+                                                            Predicate<URL> resourceFilter) throws IOException {
+        Map<String, ClassFileHeader> headers = new LinkedHashMap<>();
+        String path = packageName.replace('.', '/');
         Enumeration<URL> resources = classLoader.getResources(path);
         while (resources.hasMoreElements()) {
             URL resource = resources.nextElement();
+            if (!resourceFilter.test(resource)) {
+                continue;
+            }
             try {
-                String resourcePath = resource.toURI().getPath();
                 if (resource.getProtocol().equals("jar")) {
-                    classes.addAll(getClassesFromJar(resourcePath, packageName));
+                    for (ClassFileHeader header : scanJar(resource, packageName)) {
+                        headers.putIfAbsent(header.getName(), header);
+                    }
                 } else {
-                    classes.addAll(getClassesFromDirectory(resourcePath, packageName));
+                    String resourcePath = resource.toURI().getPath();
+                    scanDirectory(new File(resourcePath), headers);
 
                     // 添加对测试目录的扫描
                     String testPath = resourcePath.replace("main/java", "test/java");
                     File testDir = new File(testPath);
                     if (testDir.exists()) {
-                        classes.addAll(getClassesFromDirectory(testPath, packageName));
+                        scanDirectory(testDir, headers);
                     }
                 }
             } catch (URISyntaxException e) {
                 logger.warn("URL {} to URI failed!", resource, e);
             }
         }
-
-        return classes;
+        return headers;
     }
 
     /**
-     * 从文件夹中扫描指定包中的类
-     * @param directoryPath 文件夹的全路径
-     * @param packageName   目标包名
-     * @return  包中的所有类
-     * @throws ClassNotFoundException
+     * 从文件夹中读取所有class文件头，包括子文件夹
+     * @param directory 文件夹
+     * @param headers 类名 -> class文件头
      */
-    private static List<Class<?>> getClassesFromDirectory(String directoryPath, String packageName) throws ClassNotFoundException {
-        List<Class<?>> classes = new ArrayList<Class<?>>();
-        File directory = new File(directoryPath);
-        if (!directory.exists()) {
-            return classes;
-        }
+    private static void scanDirectory(File directory, Map<String, ClassFileHeader> headers) throws IOException {
         File[] files = directory.listFiles();
         if (null == files) {
-            return classes;
+            return;
         }
         for (File file : files) {
             if (file.isDirectory()) {
-                classes.addAll(getClassesFromDirectory(file.getAbsolutePath(), packageName + "." + file.getName()));
-            } else if (file.getName().endsWith(".class")) {
-                String className = packageName + '.' + file.getName().substring(0, file.getName().length() - 6);
-                Class<?> clazz = Class.forName(className);
-                classes.add(clazz);
+                scanDirectory(file, headers);
+            } else if (file.getName().endsWith(CLASS_SUFFIX)) {
+                try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                    ClassFileHeader header = parseHeader(in, file.getPath());
+                    if (header != null) {
+                        headers.putIfAbsent(header.getName(), header);
+                    }
+                }
             }
         }
-        return classes;
     }
 
     /**
-     * 从jar包中扫描指定包下的类
-     * @param jarPath   jar包的全路径
-     * @param packageName   目标包名
-     * @return 包名中的所有类
-     * @throws IOException
-     * @throws ClassNotFoundException
+     * 从jar包中读取指定包下的class文件头，本地jar优先使用扫描缓存
+     * @param resource 包在jar中的URL
+     * @param packageName 目标包名
+     * @return 包中所有class文件头
      */
-    private static List<Class<?>> getClassesFromJar(String jarPath, String packageName) throws IOException, ClassNotFoundException {
-        List<Class<?>> classes = new ArrayList<Class<?>>();
-        JarFile jarFile = new JarFile(jarPath);
-        Enumeration<JarEntry> entries = jarFile.entries();
-        while (entries.hasMoreElements()) {
-            JarEntry entry = entries.nextElement();
-            String name = entry.getName();
-            if (name.endsWith(".class") && name.startsWith(packageName.replace('.', '/'))) {
-                String className = name.substring(0, name.length() - 6).replace('/', '.');
-                Class<?> clazz = Class.forName(className);
-                classes.add(clazz);
+    private static List<ClassFileHeader> scanJar(URL resource, String packageName) throws IOException, URISyntaxException {
+        JarURLConnection connection = (JarURLConnection) resource.openConnection();
+        connection.setUseCaches(false);
+        URL jarFileUrl = connection.getJarFileURL();
+        Path jarPath = jarFileUrl.getProtocol().equals("file") ? Paths.get(jarFileUrl.toURI()) : null;
+        if (jarPath != null) {
+            List<ClassFileHeader> cached = ClassScanCache.load(jarPath, packageName);
+            if (cached != null) {
+                return cached;
             }
         }
-        jarFile.close();
-        return classes;
+        List<ClassFileHeader> headers = new ArrayList<>();
+        String prefix = packageName.replace('.', '/') + '/';
+        try (JarFile jarFile = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (name.endsWith(CLASS_SUFFIX) && name.startsWith(prefix)) {
+                    try (InputStream in = new BufferedInputStream(jarFile.getInputStream(entry))) {
+                        ClassFileHeader header = parseHeader(in, name);
+                        if (header != null) {
+                            headers.add(header);
+                        }
+                    }
+                }
+            }
+        }
+        if (jarPath != null) {
+            ClassScanCache.store(jarPath, packageName, headers);
+        }
+        return headers;
+    }
+
+    private static ClassFileHeader parseHeader(InputStream in, String source) {
+        try {
+            return ClassFileHeader.parse(in);
+        } catch (IOException e) {
+            logger.warn("parse class file {} failed!", source, e);
+            return null;
+        }
     }
 
     public static Set<Class<?>> getClassFromParent(String scanPath, Class<?> parentClass) {
+        return getClassFromParent(scanPath, parentClass, resource -> true);
+    }
+
+    /**
+     * 从包中获取parentClass的子类型，只扫描resourceFilter接受的包资源（包在各个jar或目录中的URL）
+     */
+    public static Set<Class<?>> getClassFromParent(String scanPath, Class<?> parentClass, Predicate<URL> resourceFilter) {
         Set<Class<?>> targetClasses = new HashSet<>();
         try {
-            Set<Class<?>> packageClasses = getClassesFromPackage(scanPath);
-            for (Class<?> clazz : packageClasses) {
-                if (clazz.equals(parentClass)) {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            Map<String, ClassFileHeader> headers = scanPackage(scanPath, classLoader, resourceFilter);
+            HeaderResolver resolver = new HeaderResolver(classLoader, headers);
+            String parentName = parentClass.getName();
+            for (ClassFileHeader header : headers.values()) {
+                if (header.getName().equals(parentName)) {
                     continue;
                 }
-                if (parentClass.isAssignableFrom(clazz)) {
-                    targetClasses.add(clazz);
+                if (isSubtype(header.getName(), parentName, resolver)) {
+                    targetClasses.add(Class.forName(header.getName(), false, classLoader));
                 }
             }
         } catch (IOException | ClassNotFoundException e) {
@@ -143,6 +212,80 @@ public class ClassUtils {
         }
         return targetClasses;
     }
+
+    private static boolean isSubtype(String className, String targetName, HeaderResolver resolver) {
+        if (className == null) {
+            return false;
+        }
+        if (className.equals(targetName)) {
+            return true;
+        }
+        ClassFileHeader header = resolver.get(className);
+        if (header == null) {
+            return false;
+        }
+        if (isSubtype(header.getSuperName(), targetName, resolver)) {
+            return true;
+        }
+        for (String interfaceName : header.getInterfaces()) {
+            if (isSubtype(interfaceName, targetName, resolver)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAnnotation(ClassFileHeader header, String annotationName, boolean inherited, HeaderResolver resolver) {
+        while (header != null) {
+            if (header.hasAnnotation(annotationName)) {
+                return true;
+            }
+            if (!inherited || header.getSuperName() == null) {
+                return false;
+            }
+            header = resolver.get(header.getSuperName());
+        }
+        return false;
+    }
+
+    /**
+     * 查找扫描范围以外的父类型时，通过类加载器读取class文件，不加载类
+     */
+    private static class HeaderResolver {
+        private final ClassLoader classLoader;
+        private final Map<String, ClassFileHeader> scannedHeaders;
+        private final Map<String, Optional<ClassFileHeader>> externalHeaders = new HashMap<>();
+
+        private HeaderResolver(ClassLoader classLoader, Map<String, ClassFileHeader> scannedHeaders) {
+            this.classLoader = classLoader;
+            this.scannedHeaders = scannedHeaders;
+        }
+
+        private ClassFileHeader get(String className) {
+            ClassFileHeader header = scannedHeaders.get(className);
+            if (header != null) {
+                return header;
+            }
+            if (className.equals(Object.class.getName())) {
+                return null;
+            }
+            return externalHeaders.computeIfAbsent(className, this::read).orElse(null);
+        }
+
+        private Optional<ClassFileHeader> read(String className) {
+            String resourceName = className.replace('.', '/') + CLASS_SUFFIX;
+            try (InputStream in = classLoader.getResourceAsStream(resourceName)) {
+                if (in == null) {
+                    return Optional.empty();
+                }
+                return Optional.ofNullable(parseHeader(new BufferedInputStream(in), resourceName));
+            } catch (IOException e) {
+                logger.warn("read class file {} failed!", resourceName, e);
+                return Optional.empty();
+            }
+        }
+    }
+
     public static boolean isAbstract(Class<?> clazz) {
         return Modifier.isAbstract(clazz.getModifiers());
     }
@@ -1,9 +1,22 @@
 package top.kgame.lib.ecs.tools;
 
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EcsTools {
+    //类型 -> 泛型基类 -> 解析后的泛型参数
+    private static final ClassValue<Map<Class<?>, Class<?>[]>> TYPE_ARGUMENTS = new ClassValue<>() {
+        @Override
+        protected Map<Class<?>, Class<?>[]> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     public static Type[] generateParameterizedType(Class<?> kclass) {
         Type genType = kclass.getGenericSuperclass();
         if (genType instanceof ParameterizedType parameterizedType) {
@@ -12,4 +25,59 @@ public class EcsTools {
             throw new RuntimeException("EcsInitializeSystem Constructor execute failed! reason:GenericSuperclass not instanceof ParameterizedType");
         }
     }
+
+    /**
+     * 获取kclass继承genericBase时指定的泛型参数，每个类型只解析一次
+     * <p>支持多层继承，中间类可以继续使用泛型，只要最终能解析为具体类型。</p>
+     * @param kclass 子类
+     * @param genericBase 声明泛型参数的父类
+     * @return 按genericBase泛型参数声明顺序排列的具体类型，泛型参数为参数化类型时返回其原始类型
+     * @throws IllegalArgumentException kclass不是genericBase的子类或者泛型参数无法解析为具体类型时抛出
+     */
+    public static Class<?>[] getTypeArguments(Class<?> kclass, Class<?> genericBase) {
+        return TYPE_ARGUMENTS.get(kclass).computeIfAbsent(genericBase, base -> resolveTypeArguments(kclass, base)).clone();
+    }
+
+    private static Class<?>[] resolveTypeArguments(Class<?> kclass, Class<?> genericBase) {
+        Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+        Class<?> current = kclass;
+        while (current != null && current != genericBase) {
+            Type superType = current.getGenericSuperclass();
+            if (superType instanceof ParameterizedType parameterizedType) {
+                Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+                TypeVariable<?>[] typeParameters = rawType.getTypeParameters();
+                Type[] actualTypes = parameterizedType.getActualTypeArguments();
+                for (int i = 0; i < typeParameters.length; i++) {
+                    Type actualType = actualTypes[i];
+                    bindings.put(typeParameters[i], actualType instanceof TypeVariable<?> variable
+                            ? bindings.getOrDefault(variable, variable) : actualType);
+                }
+            }
+            current = current.getSuperclass();
+        }
+        if (current == null) {
+            throw new IllegalArgumentException(kclass.getName() + " is not subclass of " + genericBase.getName());
+        }
+        TypeVariable<?>[] typeParameters = genericBase.getTypeParameters();
+        Class<?>[] result = new Class<?>[typeParameters.length];
+        for (int i = 0; i < typeParameters.length; i++) {
+            result[i] = toClass(bindings.get(typeParameters[i]), kclass, typeParameters[i]);
+        }
+        return result;
+    }
+
+    private static Class<?> toClass(Type type, Class<?> kclass, TypeVariable<?> typeParameter) {
+        if (type instanceof Class<?> clazz) {
+            return clazz;
+        }
+        if (type instanceof ParameterizedType parameterizedType) {
+            return (Class<?>) parameterizedType.getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            throw new IllegalArgumentException("type argument " + typeParameter.getName() + " of " + kclass.getName()
+                    + " is generic array " + type.getTypeName());
+        }
+        throw new IllegalArgumentException("type argument " + typeParameter.getName() + " of " + kclass.getName()
+                + " is not specified");
+    }
 }
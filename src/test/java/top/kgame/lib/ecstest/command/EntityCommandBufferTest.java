@@ -0,0 +1,205 @@
+package top.kgame.lib.ecstest.command;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.command.EntityCommandBuffer;
+import top.kgame.lib.ecs.exception.InvalidEcsTypeException;
+import top.kgame.lib.ecstest.command.component.ComponentCommandA;
+import top.kgame.lib.ecstest.command.component.ComponentCommandB;
+import top.kgame.lib.ecstest.command.component.ComponentCommandC;
+import top.kgame.lib.ecstest.entity.remove.batch.component.ComponentBatchRemoveA;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * EntityCommandBuffer测试用例
+ */
+class EntityCommandBufferTest {
+    private EntityCommandBuffer commandBuffer;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        commandBuffer = new EntityCommandBuffer();
+    }
+
+    @Test
+    void concurrentRecordMergeInSortKeyOrder() throws Exception {
+        final int threadCount = 4;
+        final int batchCount = 64;
+        final int commandPerBatch = 10;
+        List<Integer> executed = new ArrayList<>();
+        commandBuffer.addCommand(() -> executed.add(-1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                // 每个线程倒序记录自己负责的批次
+                for (int batch = batchCount - 1 - thread; batch >= 0; batch -= threadCount) {
+                    for (int i = 0; i < commandPerBatch; i++) {
+                        final int value = batch * commandPerBatch + i;
+                        commandBuffer.addCommand(batch, () -> executed.add(value));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        commandBuffer.playBack();
+
+        assert executed.size() == batchCount * commandPerBatch + 1;
+        assert executed.get(0) == -1;
+        for (int i = 0; i < batchCount * commandPerBatch; i++) {
+            assert executed.get(i + 1) == i;
+        }
+
+        // 合并后命令段被清空，可以重复使用
+        executed.clear();
+        commandBuffer.addCommand(1, () -> executed.add(1));
+        commandBuffer.addCommand(0, () -> executed.add(0));
+        commandBuffer.playBack();
+        assert executed.equals(List.of(0, 1));
+    }
+
+    @Test
+    void typedCommandsPlayBackInOrder() {
+        EcsWorld ecsWorld = EcsWorld.generateInstance(EntityCommandBufferTest.class.getPackage().getName());
+        List<Entity> created = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            created.clear();
+            commandBuffer.createEntity(ecsWorld, 1, created::add);
+            commandBuffer.addCommand(() -> {
+                Entity entity = created.get(0);
+                // 执行期间添加的命令在本次回放中执行
+                commandBuffer.addComponent(entity, new ComponentCommandB());
+                commandBuffer.removeComponent(entity, ComponentCommandA.class);
+            });
+            commandBuffer.playBack();
+            assert commandBuffer.isEmpty();
+
+            Entity entity = created.get(0);
+            assert entity.hasComponent(ComponentCommandB.class);
+            assert !entity.hasComponent(ComponentCommandA.class);
+            commandBuffer.destroyEntity(ecsWorld, entity);
+            commandBuffer.playBack();
+            assert entity.isDestroyRequested();
+        }
+        ecsWorld.close();
+    }
+
+    @Test
+    void coalesceComponentChanges() {
+        EcsWorld ecsWorld = EcsWorld.generateInstance(EntityCommandBufferTest.class.getPackage().getName());
+        Entity first = ecsWorld.createEntity(1);
+        Entity second = ecsWorld.createEntity(1);
+        ComponentCommandA oldA = first.getComponent(ComponentCommandA.class);
+        ComponentCommandA newA = new ComponentCommandA();
+        ComponentCommandB b = new ComponentCommandB();
+
+        commandBuffer.addComponent(first, b);
+        commandBuffer.addComponent(second, new ComponentCommandC());
+        // 先移除后添加，替换为新组件
+        commandBuffer.removeComponent(first, ComponentCommandA.class);
+        commandBuffer.addComponent(first, newA);
+        // 先添加后移除，相互抵消
+        commandBuffer.addComponent(first, new ComponentCommandC());
+        commandBuffer.removeComponent(first, ComponentCommandC.class);
+        // 重复添加不生效
+        commandBuffer.addComponent(first, new ComponentCommandB());
+        commandBuffer.removeComponent(second, ComponentCommandA.class);
+        commandBuffer.playBack();
+
+        assert first.getComponent(ComponentCommandB.class) == b;
+        assert first.getComponent(ComponentCommandA.class) == newA;
+        assert first.getComponent(ComponentCommandA.class) != oldA;
+        assert !first.hasComponent(ComponentCommandC.class);
+        assert second.hasComponent(ComponentCommandC.class);
+        assert !second.hasComponent(ComponentCommandA.class);
+        ecsWorld.close();
+    }
+
+    @Test
+    void skipCommandsOfDestroyedEntity() {
+        EcsWorld ecsWorld = EcsWorld.generateInstance(EntityCommandBufferTest.class.getPackage().getName());
+        ecsWorld.getObjectPool().setLimit(16, 0);
+        Entity alive = ecsWorld.createEntity(1);
+        Entity destroyed = ecsWorld.createEntity(1);
+        Entity reused = ecsWorld.createEntity(1);
+
+        // 单条命令
+        commandBuffer.addComponent(destroyed, new ComponentCommandB());
+        commandBuffer.addCommand(() -> {});
+        // 合并的组件命令
+        commandBuffer.removeComponent(destroyed, ComponentCommandA.class);
+        commandBuffer.addComponent(alive, new ComponentCommandB());
+        commandBuffer.addComponent(reused, new ComponentCommandC());
+        commandBuffer.destroyEntity(ecsWorld, destroyed);
+        commandBuffer.destroyEntity(ecsWorld, reused);
+
+        // 记录后、回放前销毁
+        ecsWorld.requestDestroyEntity(destroyed);
+        ecsWorld.requestDestroyEntity(reused);
+        ecsWorld.update(1);
+        assert ecsWorld.getEntity(destroyed.getHandle()) == null;
+        // 对象池复用的Entity不会执行记录给旧Entity的命令
+        Entity created = ecsWorld.createEntity(1);
+        assert created == reused || created == destroyed;
+
+        commandBuffer.playBack();
+        assert commandBuffer.isEmpty();
+        assert alive.hasComponent(ComponentCommandB.class);
+        assert created.hasComponent(ComponentCommandA.class);
+        assert !created.hasComponent(ComponentCommandB.class);
+        assert !created.hasComponent(ComponentCommandC.class);
+        assert !created.isDestroyRequested();
+        assert ecsWorld.getEntity(created.getHandle()) == created;
+        ecsWorld.close();
+    }
+
+    @Test
+    void keepPendingChangesWhenEntityFails() {
+        EcsWorld ecsWorld = EcsWorld.generateInstance(EntityCommandBufferTest.class.getPackage().getName());
+        Entity first = ecsWorld.createEntity(1);
+        Entity failed = ecsWorld.createEntity(1);
+        Entity pending = ecsWorld.createEntity(1);
+
+        commandBuffer.addComponent(first, new ComponentCommandB());
+        // 未注册的组件类型，合并执行到该Entity时抛出异常
+        commandBuffer.addComponent(failed, new ComponentBatchRemoveA());
+        commandBuffer.addComponent(pending, new ComponentCommandB());
+        commandBuffer.removeComponent(first, ComponentCommandA.class);
+        commandBuffer.addComponent(failed, new ComponentCommandC());
+        commandBuffer.addComponent(pending, new ComponentCommandC());
+        List<Integer> executed = new ArrayList<>();
+        commandBuffer.addCommand(() -> executed.add(1));
+        try {
+            commandBuffer.playBack();
+            assert false;
+        } catch (InvalidEcsTypeException e) {
+            System.out.println(e.getMessage());
+        }
+        assert first.hasComponent(ComponentCommandB.class);
+        assert !first.hasComponent(ComponentCommandA.class);
+        assert !pending.hasComponent(ComponentCommandB.class);
+        assert executed.isEmpty();
+
+        // 失败Entity的命令视为已执行，其余命令保留到下次回放
+        commandBuffer.playBack();
+        assert commandBuffer.isEmpty();
+        assert pending.hasComponent(ComponentCommandB.class);
+        assert pending.hasComponent(ComponentCommandC.class);
+        assert !failed.hasComponent(ComponentCommandC.class);
+        assert executed.equals(List.of(1));
+        ecsWorld.close();
+    }
+}
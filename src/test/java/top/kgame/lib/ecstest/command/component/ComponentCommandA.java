@@ -0,0 +1,6 @@
+package top.kgame.lib.ecstest.command.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentCommandA implements EcsComponent {
+}
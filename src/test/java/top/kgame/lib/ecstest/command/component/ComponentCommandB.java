@@ -0,0 +1,6 @@
+package top.kgame.lib.ecstest.command.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentCommandB implements EcsComponent {
+}
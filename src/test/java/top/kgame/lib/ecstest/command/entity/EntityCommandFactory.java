@@ -0,0 +1,23 @@
+package top.kgame.lib.ecstest.command.entity;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.extensions.entity.BaseEntityFactory;
+import top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute;
+import top.kgame.lib.ecstest.command.component.ComponentCommandA;
+
+import java.util.Collection;
+import java.util.List;
+
+@EntityFactoryAttribute
+public class EntityCommandFactory extends BaseEntityFactory {
+
+    @Override
+    public int typeId() {
+        return 1;
+    }
+
+    @Override
+    protected Collection<EcsComponent> generateComponent() {
+        return List.of(new ComponentCommandA());
+    }
+}
@@ -0,0 +1,92 @@
+package top.kgame.lib.ecstest.component.struct;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.EntityArchetype;
+import top.kgame.lib.ecs.core.StructLayout;
+import top.kgame.lib.ecs.exception.InvalidEcsTypeException;
+import top.kgame.lib.ecstest.component.struct.component.ComponentStructInvalid;
+import top.kgame.lib.ecstest.component.struct.component.ComponentStructMove;
+import top.kgame.lib.ecstest.component.struct.component.ComponentStructPadded;
+import top.kgame.lib.ecstest.component.struct.component.ComponentStructTag;
+import top.kgame.lib.ecstest.component.struct.entity.EntityStructFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 堆外组件测试用例
+ */
+class EcsStructComponentTest {
+    private EcsWorld ecsWorld;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsStructComponentTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+    }
+
+    @Test
+    void updateStructComponent() {
+        final int entityCount = EntityArchetype.CHUNK_CAPACITY + 10;
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < entityCount; i++) {
+            entities.add(ecsWorld.createEntity(1));
+        }
+
+        final int interval = 33;
+        final int updateCount = 10;
+        long currentTime = 0;
+        for (int i = 0; i < updateCount; i++) {
+            ecsWorld.update(currentTime);
+            currentTime += interval;
+        }
+        for (Entity entity : entities) {
+            ComponentStructMove move = entity.getComponent(ComponentStructMove.class);
+            assert move.moveCount == updateCount;
+            assert move.x == EntityStructFactory.SPEED * updateCount;
+            // 返回的是副本，修改不影响Entity
+            move.x = 0;
+        }
+
+        // 迁移archetype后堆外数据保持不变
+        for (int i = 0; i < entityCount; i += 2) {
+            entities.get(i).addComponent(new ComponentStructTag());
+        }
+        for (int i = 0; i < updateCount; i++) {
+            ecsWorld.update(currentTime);
+            currentTime += interval;
+        }
+        for (Entity entity : entities) {
+            ComponentStructMove move = entity.getComponent(ComponentStructMove.class);
+            assert move.moveCount == updateCount * 2;
+            assert move.x == EntityStructFactory.SPEED * updateCount * 2;
+        }
+        ecsWorld.close();
+    }
+
+    @Test
+    void invalidStructComponent() {
+        boolean rejected = false;
+        try {
+            StructLayout.of(ComponentStructInvalid.class);
+        } catch (InvalidEcsTypeException e) {
+            rejected = true;
+        }
+        assert rejected;
+        ecsWorld.close();
+    }
+
+    @Test
+    void paddedStructLayout() {
+        StructLayout layout = StructLayout.of(ComponentStructPadded.class);
+        // long + int补齐为16字节，每一行的long都按8字节对齐
+        assert layout.getSize() == 16;
+        assert layout.getField("total").getOffset() == 0;
+        assert layout.getField("count").getOffset() == Long.BYTES;
+        ecsWorld.close();
+    }
+}
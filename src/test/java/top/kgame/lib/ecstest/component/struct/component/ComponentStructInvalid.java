@@ -0,0 +1,7 @@
+package top.kgame.lib.ecstest.component.struct.component;
+
+import top.kgame.lib.ecs.EcsStructComponent;
+
+public class ComponentStructInvalid implements EcsStructComponent {
+    public String name;
+}
@@ -0,0 +1,9 @@
+package top.kgame.lib.ecstest.component.struct.component;
+
+import top.kgame.lib.ecs.EcsStructComponent;
+
+public class ComponentStructMove implements EcsStructComponent {
+    public float x;
+    public float speed;
+    public long moveCount;
+}
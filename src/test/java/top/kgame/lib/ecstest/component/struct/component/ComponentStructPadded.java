@@ -0,0 +1,8 @@
+package top.kgame.lib.ecstest.component.struct.component;
+
+import top.kgame.lib.ecs.EcsStructComponent;
+
+public class ComponentStructPadded implements EcsStructComponent {
+    public int count;
+    public long total;
+}
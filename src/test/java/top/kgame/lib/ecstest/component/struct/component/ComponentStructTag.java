@@ -0,0 +1,6 @@
+package top.kgame.lib.ecstest.component.struct.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentStructTag implements EcsComponent {
+}
@@ -0,0 +1,26 @@
+package top.kgame.lib.ecstest.component.struct.entity;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.extensions.entity.BaseEntityFactory;
+import top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute;
+import top.kgame.lib.ecstest.component.struct.component.ComponentStructMove;
+
+import java.util.Collection;
+import java.util.List;
+
+@EntityFactoryAttribute
+public class EntityStructFactory extends BaseEntityFactory {
+    public static final float SPEED = 1.5f;
+
+    @Override
+    public int typeId() {
+        return 1;
+    }
+
+    @Override
+    protected Collection<EcsComponent> generateComponent() {
+        ComponentStructMove move = new ComponentStructMove();
+        move.speed = SPEED;
+        return List.of(move);
+    }
+}
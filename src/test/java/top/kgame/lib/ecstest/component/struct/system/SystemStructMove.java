@@ -0,0 +1,54 @@
+package top.kgame.lib.ecstest.component.struct.system;
+
+import top.kgame.lib.ecs.EcsSystem;
+import top.kgame.lib.ecs.core.*;
+import top.kgame.lib.ecstest.component.struct.component.ComponentStructMove;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * 按块直接读写堆外组件列
+ */
+public class SystemStructMove extends EcsSystem {
+    private final StructLayout layout = StructLayout.of(ComponentStructMove.class);
+    private final StructField x = layout.getField("x");
+    private final StructField speed = layout.getField("speed");
+    private final StructField moveCount = layout.getField("moveCount");
+    private final EntityGroup.ChunkConsumer moveAction = this::move;
+    private ComponentMatchParam<ComponentStructMove> moveParam;
+
+    @Override
+    protected void onInit() {
+        moveParam = ComponentMatchParam.additive(getWorld(), ComponentStructMove.class);
+        configEntityFilter(ComponentTypeQuery.generate(List.of(moveParam)));
+    }
+
+    @Override
+    protected void onStart() {
+
+    }
+
+    @Override
+    protected void onUpdate() {
+        forEachMatchChunk(moveAction);
+    }
+
+    private void move(ArchetypeChunk chunk, int rowCount) {
+        ByteBuffer column = chunk.getStructColumn(moveParam.getTypeIndex());
+        for (int row = 0; row < rowCount; row++) {
+            x.setFloat(column, row, x.getFloat(column, row) + speed.getFloat(column, row));
+            moveCount.setLong(column, row, moveCount.getLong(column, row) + 1);
+        }
+    }
+
+    @Override
+    protected void onStop() {
+
+    }
+
+    @Override
+    protected void onDestroy() {
+
+    }
+}
@@ -0,0 +1,46 @@
+package top.kgame.lib.ecstest.component.structupdate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+
+/**
+ * 按组件对象更新的System不能匹配堆外组件
+ */
+class EcsStructUpdateSystemTest {
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+    }
+
+    @Test
+    void rejectStructComponent() {
+        assertRejected(EcsStructUpdateSystemTest.class.getPackage().getName() + ".system");
+    }
+
+    @Test
+    void rejectStructInitialize() {
+        assertRejected(EcsStructUpdateSystemTest.class.getPackage().getName() + ".initialize");
+    }
+
+    @Test
+    void rejectStructDestroy() {
+        assertRejected(EcsStructUpdateSystemTest.class.getPackage().getName() + ".destroy");
+    }
+
+    @Test
+    void rejectStructExclude() {
+        assertRejected(EcsStructUpdateSystemTest.class.getPackage().getName() + ".exclude");
+    }
+
+    private static void assertRejected(String packageName) {
+        try {
+            EcsWorld.generateInstance(packageName);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            assert e.getMessage().contains("EcsStructComponent");
+        }
+    }
+}
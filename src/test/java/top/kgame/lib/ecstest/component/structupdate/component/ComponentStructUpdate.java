@@ -0,0 +1,7 @@
+package top.kgame.lib.ecstest.component.structupdate.component;
+
+import top.kgame.lib.ecs.EcsStructComponent;
+
+public class ComponentStructUpdate implements EcsStructComponent {
+    public int value;
+}
@@ -0,0 +1,30 @@
+package top.kgame.lib.ecstest.component.structupdate.destroy;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.system.EcsDestroySystem;
+import top.kgame.lib.ecstest.component.structupdate.component.ComponentStructUpdate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 堆外组件不能通过组件对象处理销毁，初始化时被拒绝
+ */
+public class SystemStructDestroy extends EcsDestroySystem<ComponentStructUpdate> {
+
+    @Override
+    protected void onEntityDestroy(Entity entity, ComponentStructUpdate component) {
+        component.value++;
+    }
+
+    @Override
+    public Collection<Class<? extends EcsComponent>> getExtraRequirementComponent() {
+        return List.of();
+    }
+
+    @Override
+    public Collection<Class<? extends EcsComponent>> getExtraExcludeComponent() {
+        return List.of();
+    }
+}
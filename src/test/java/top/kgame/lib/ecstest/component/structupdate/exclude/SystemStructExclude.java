@@ -0,0 +1,30 @@
+package top.kgame.lib.ecstest.component.structupdate.exclude;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemExcludeOne;
+import top.kgame.lib.ecstest.component.structupdate.component.ComponentStructUpdate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 排除组件同样按组件对象匹配，不能使用堆外组件
+ */
+public class SystemStructExclude extends EcsUpdateSystemExcludeOne<ComponentStructUpdate> {
+
+    @Override
+    protected void update(Entity entity) {
+
+    }
+
+    @Override
+    public Collection<Class<? extends EcsComponent>> getExtraRequirementComponent() {
+        return List.of();
+    }
+
+    @Override
+    public Collection<Class<? extends EcsComponent>> getExtraExcludeComponent() {
+        return List.of();
+    }
+}
@@ -0,0 +1,37 @@
+package top.kgame.lib.ecstest.component.structupdate.initialize;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.system.EcsInitializeSystem;
+import top.kgame.lib.ecstest.component.structupdate.component.ComponentStructUpdate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 堆外组件不能通过组件对象初始化，初始化时被拒绝
+ */
+public class SystemStructInitialize extends EcsInitializeSystem<ComponentStructUpdate> {
+
+    @Override
+    public boolean onInitialize(Entity entity, ComponentStructUpdate data) {
+        data.value++;
+        return true;
+    }
+
+    @Override
+    protected SystemInitFinishSingle getInitFinishSingle() {
+        return new SystemInitFinishSingle() {
+        };
+    }
+
+    @Override
+    public Collection<Class<? extends EcsComponent>> getExtraRequirementComponent() {
+        return List.of();
+    }
+
+    @Override
+    public Collection<Class<? extends EcsComponent>> getExtraExcludeComponent() {
+        return List.of();
+    }
+}
@@ -0,0 +1,16 @@
+package top.kgame.lib.ecstest.component.structupdate.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.component.structupdate.component.ComponentStructUpdate;
+
+/**
+ * 堆外组件不能通过组件对象更新，初始化时被拒绝
+ */
+public class SystemStructUpdate extends EcsUpdateSystemOne<ComponentStructUpdate> {
+
+    @Override
+    protected void update(Entity entity, ComponentStructUpdate component) {
+        component.value++;
+    }
+}
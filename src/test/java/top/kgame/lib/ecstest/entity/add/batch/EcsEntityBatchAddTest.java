@@ -0,0 +1,67 @@
+package top.kgame.lib.ecstest.entity.add.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.EntityArchetype;
+import top.kgame.lib.ecstest.entity.add.batch.component.ComponentBatchA;
+import top.kgame.lib.ecstest.entity.add.batch.component.ComponentBatchB;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 批量创建Entity测试用例
+ */
+class EcsEntityBatchAddTest {
+    private EcsWorld ecsWorld;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsEntityBatchAddTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+    }
+
+    @Test
+    void createEntitiesInBatch() {
+        final int count = EntityArchetype.CHUNK_CAPACITY * 5 + 3;
+        List<Entity> entities = new ArrayList<>();
+        ecsWorld.createEntities(1, count, entity -> {
+            entity.getComponent(ComponentBatchA.class).value = entities.size() * 10;
+            entities.add(entity);
+        });
+        assert entities.size() == count;
+        Set<Long> handles = new HashSet<>();
+        for (Entity entity : entities) {
+            assert handles.add(entity.getHandle());
+            assert ecsWorld.getEntity(entity.getHandle()) == entity;
+        }
+        ecsWorld.update(0);
+        for (int i = 0; i < count; i++) {
+            assert entities.get(i).getComponent(ComponentBatchA.class).value == i * 10 + 1;
+        }
+        ecsWorld.close();
+    }
+
+    @Test
+    void createEntitiesWithDifferentComponents() {
+        final int count = 10;
+        List<Entity> entities = new ArrayList<>();
+        ecsWorld.createEntities(2, count, entities::add);
+        assert entities.size() == count;
+        for (int i = 0; i < count; i++) {
+            Entity entity = entities.get(i);
+            assert entity.hasComponent(ComponentBatchA.class);
+            assert entity.hasComponent(ComponentBatchB.class) == (i % 2 == 1);
+        }
+        ecsWorld.update(0);
+        for (Entity entity : entities) {
+            assert entity.getComponent(ComponentBatchA.class).value == 1;
+        }
+        ecsWorld.close();
+    }
+}
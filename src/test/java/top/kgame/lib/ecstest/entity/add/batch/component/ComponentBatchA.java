@@ -0,0 +1,7 @@
+package top.kgame.lib.ecstest.entity.add.batch.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentBatchA implements EcsComponent {
+    public int value = 0;
+}
@@ -0,0 +1,31 @@
+package top.kgame.lib.ecstest.entity.add.batch.entity;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.extensions.entity.BaseEntityFactory;
+import top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute;
+import top.kgame.lib.ecstest.entity.add.batch.component.ComponentBatchA;
+import top.kgame.lib.ecstest.entity.add.batch.component.ComponentBatchB;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 每隔一个Entity多生成一个组件，组件类型与第一个Entity不同
+ */
+@EntityFactoryAttribute
+public class EntityBatchMixedFactory extends BaseEntityFactory {
+    private int createCount = 0;
+
+    @Override
+    public int typeId() {
+        return 2;
+    }
+
+    @Override
+    protected Collection<EcsComponent> generateComponent() {
+        if (createCount++ % 2 == 0) {
+            return List.of(new ComponentBatchA());
+        }
+        return List.of(new ComponentBatchA(), new ComponentBatchB());
+    }
+}
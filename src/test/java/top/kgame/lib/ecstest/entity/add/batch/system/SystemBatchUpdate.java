@@ -0,0 +1,13 @@
+package top.kgame.lib.ecstest.entity.add.batch.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.entity.add.batch.component.ComponentBatchA;
+
+public class SystemBatchUpdate extends EcsUpdateSystemOne<ComponentBatchA> {
+
+    @Override
+    protected void update(Entity entity, ComponentBatchA component) {
+        component.value++;
+    }
+}
@@ -0,0 +1,63 @@
+package top.kgame.lib.ecstest.entity.iterate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.EntityArchetype;
+import top.kgame.lib.ecstest.entity.iterate.component.ComponentIterate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 遍历期间Entity迁移archetype测试用例
+ */
+class EcsEntityIterateTest {
+    private EcsWorld ecsWorld;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsEntityIterateTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+    }
+
+    @Test
+    void moveEntityWhileIterating() {
+        moveEntityWhileIterating(20);
+    }
+
+    @Test
+    void moveEntityAcrossChunks() {
+        moveEntityWhileIterating(EntityArchetype.CHUNK_CAPACITY * 2 + 10);
+    }
+
+    private void moveEntityWhileIterating(int entityCount) {
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < entityCount; i++) {
+            entities.add(ecsWorld.createEntity(1));
+        }
+
+        final int interval = 33;
+        final int updateCount = 10;
+        long currentTime = 0;
+        for (int i = 0; i < updateCount; i++) {
+            ecsWorld.update(currentTime);
+            currentTime += interval;
+        }
+
+        for (Entity entity : entities) {
+            assert entity.getComponent(ComponentIterate.class).visitCount == updateCount;
+        }
+        // 每次update创建的Entity从下一次update开始被遍历
+        assert ecsWorld.getAllEntity().size() == entityCount + updateCount;
+        for (Entity entity : ecsWorld.getAllEntity()) {
+            int spawnOrder = entity.getIndex() - entityCount - 1;
+            if (spawnOrder >= 0) {
+                assert entity.getComponent(ComponentIterate.class).visitCount == updateCount - spawnOrder - 1;
+            }
+        }
+        ecsWorld.close();
+    }
+}
@@ -0,0 +1,8 @@
+package top.kgame.lib.ecstest.entity.iterate.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentIterate implements EcsComponent {
+    public int visitCount = 0;
+    public long lastVisitTime = -1;
+}
@@ -0,0 +1,6 @@
+package top.kgame.lib.ecstest.entity.iterate.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentIterateMarker implements EcsComponent {
+}
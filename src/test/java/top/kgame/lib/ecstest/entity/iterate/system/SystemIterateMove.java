@@ -0,0 +1,38 @@
+package top.kgame.lib.ecstest.entity.iterate.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.entity.iterate.component.ComponentIterate;
+import top.kgame.lib.ecstest.entity.iterate.component.ComponentIterateMarker;
+
+/**
+ * 遍历过程中切换自身和相邻Entity的archetype，并创建新的Entity
+ */
+public class SystemIterateMove extends EcsUpdateSystemOne<ComponentIterate> {
+    private static final int SPAWN_ENTITY_INDEX = 5;
+
+    @Override
+    protected void update(Entity entity, ComponentIterate component) {
+        long currentTime = getWorld().getCurrentTime();
+        assert component.lastVisitTime != currentTime : "entity " + entity.getIndex() + " visited twice";
+        component.lastVisitTime = currentTime;
+        component.visitCount++;
+
+        toggleMarker(entity);
+        Entity next = getWorld().getEntity(entity.getIndex() + 1);
+        if (next != null) {
+            toggleMarker(next);
+        }
+        if (entity.getIndex() == SPAWN_ENTITY_INDEX) {
+            getWorld().createEntity(1);
+        }
+    }
+
+    private void toggleMarker(Entity entity) {
+        if (entity.hasComponent(ComponentIterateMarker.class)) {
+            entity.removeComponent(ComponentIterateMarker.class);
+        } else {
+            entity.addComponent(new ComponentIterateMarker());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package top.kgame.lib.ecstest.entity.pool;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.EcsObjectPool;
+import top.kgame.lib.ecstest.entity.pool.component.ComponentPoolBullet;
+import top.kgame.lib.ecstest.entity.pool.entity.EntityPoolBulletFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entity和组件对象池测试用例
+ */
+class EcsEntityPoolTest {
+    private EcsWorld ecsWorld;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsEntityPoolTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+    }
+
+    @Test
+    void reuseDestroyedEntity() {
+        final int poolLimit = 4;
+        final int entityCount = 6;
+        EcsObjectPool objectPool = ecsWorld.getObjectPool();
+        objectPool.setLimit(poolLimit, poolLimit);
+
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < entityCount; i++) {
+            entities.add(ecsWorld.createEntity(1));
+        }
+        assert objectPool.getEntityMissCount() == entityCount;
+        assert objectPool.getComponentMissCount() == entityCount;
+
+        for (Entity entity : entities) {
+            ecsWorld.requestDestroyEntity(entity);
+        }
+        ecsWorld.update(0);
+        assert ecsWorld.getAllEntity().isEmpty();
+
+        // 超出容量的对象被丢弃，只有poolLimit个可以复用
+        for (int i = 0; i < entityCount; i++) {
+            Entity entity = ecsWorld.createEntity(1);
+            ComponentPoolBullet bullet = entity.getComponent(ComponentPoolBullet.class);
+            assert bullet.damage == EntityPoolBulletFactory.DAMAGE;
+            if (i < poolLimit) {
+                assert entities.stream().anyMatch(old -> old == entity);
+                assert bullet.cleanCount == 1;
+            } else {
+                assert bullet.cleanCount == 0;
+            }
+        }
+        assert objectPool.getEntityHitCount() == poolLimit;
+        assert objectPool.getComponentHitCount() == poolLimit;
+        assert ecsWorld.getAllEntity().size() == entityCount;
+        ecsWorld.close();
+    }
+
+    @Test
+    void noStatisticsWhenDisabled() {
+        EcsObjectPool objectPool = ecsWorld.getObjectPool();
+        // 默认不开启，不统计
+        Entity entity = ecsWorld.createEntity(1);
+        assert objectPool.getEntityMissCount() == 0;
+        assert objectPool.getComponentMissCount() == 0;
+        ecsWorld.requestDestroyEntity(entity);
+        ecsWorld.update(0);
+        assert ecsWorld.createEntity(1) != entity;
+        assert objectPool.getEntityHitCount() == 0;
+        assert objectPool.getEntityMissCount() == 0;
+        assert objectPool.getComponentHitCount() == 0;
+        assert objectPool.getComponentMissCount() == 0;
+
+        // 只开启Entity池时只统计Entity
+        objectPool.setLimit(1, 0);
+        ecsWorld.createEntity(1);
+        assert objectPool.getEntityMissCount() == 1;
+        assert objectPool.getComponentMissCount() == 0;
+        ecsWorld.close();
+    }
+}
@@ -0,0 +1,15 @@
+package top.kgame.lib.ecstest.entity.pool.component;
+
+import top.kgame.lib.ecs.EcsCleanable;
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentPoolBullet implements EcsComponent, EcsCleanable {
+    public int damage;
+    public int cleanCount = 0;
+
+    @Override
+    public void clean() {
+        damage = 0;
+        cleanCount++;
+    }
+}
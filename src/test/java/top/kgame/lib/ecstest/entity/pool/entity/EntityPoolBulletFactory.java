@@ -0,0 +1,26 @@
+package top.kgame.lib.ecstest.entity.pool.entity;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.extensions.entity.BaseEntityFactory;
+import top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute;
+import top.kgame.lib.ecstest.entity.pool.component.ComponentPoolBullet;
+
+import java.util.Collection;
+import java.util.List;
+
+@EntityFactoryAttribute
+public class EntityPoolBulletFactory extends BaseEntityFactory {
+    public static final int DAMAGE = 10;
+
+    @Override
+    public int typeId() {
+        return 1;
+    }
+
+    @Override
+    protected Collection<EcsComponent> generateComponent() {
+        ComponentPoolBullet bullet = obtainComponent(ComponentPoolBullet.class, ComponentPoolBullet::new);
+        bullet.damage = DAMAGE;
+        return List.of(bullet);
+    }
+}
@@ -0,0 +1,70 @@
+package top.kgame.lib.ecstest.entity.remove.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.EntityArchetype;
+import top.kgame.lib.ecs.extensions.component.DestroyingComponent;
+import top.kgame.lib.ecstest.entity.remove.batch.component.ComponentBatchRemoveA;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 批量销毁Entity测试用例
+ */
+class EcsEntityBatchRemoveTest {
+    private EcsWorld ecsWorld;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsEntityBatchRemoveTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+    }
+
+    @Test
+    void destroyEntitiesInBatch() {
+        final int count = EntityArchetype.CHUNK_CAPACITY * 3 + 7;
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Entity entity = ecsWorld.createEntity(i % 2 == 0 ? 1 : 2);
+            entity.getComponent(ComponentBatchRemoveA.class).id = i;
+            entities.add(entity);
+        }
+        Set<EntityArchetype> archetypes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entity entity : entities) {
+            archetypes.add(entity.getArchetype());
+        }
+        ecsWorld.update(1);
+        // 没有关注DestroyingComponent的System，请求销毁时不会迁移到带该组件的archetype
+        int destroyingIndex = ecsWorld.getComponentTypeIndex(DestroyingComponent.class);
+        for (EntityArchetype archetype : archetypes) {
+            assert archetype.getAddTransition(destroyingIndex) == null;
+        }
+        int alive = 0;
+        for (int i = 0; i < count; i++) {
+            Entity entity = entities.get(i);
+            if (i % 3 == 0) {
+                assert ecsWorld.getEntity(entity.getHandle()) == null;
+            } else {
+                alive++;
+                assert ecsWorld.getEntity(entity.getHandle()) == entity;
+            }
+        }
+        assert ecsWorld.getAllEntity().size() == alive;
+
+        // 压缩后剩余Entity仍然能被正确遍历
+        ecsWorld.update(2);
+        for (Entity entity : ecsWorld.getAllEntity()) {
+            ComponentBatchRemoveA component = entity.getComponent(ComponentBatchRemoveA.class);
+            assert component.id % 3 != 0;
+            assert component.value == 2;
+        }
+        ecsWorld.close();
+    }
+}
@@ -0,0 +1,8 @@
+package top.kgame.lib.ecstest.entity.remove.batch.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentBatchRemoveA implements EcsComponent {
+    public int id = 0;
+    public int value = 0;
+}
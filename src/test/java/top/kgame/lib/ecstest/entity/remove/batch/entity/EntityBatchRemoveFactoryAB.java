@@ -0,0 +1,24 @@
+package top.kgame.lib.ecstest.entity.remove.batch.entity;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.extensions.entity.BaseEntityFactory;
+import top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute;
+import top.kgame.lib.ecstest.entity.remove.batch.component.ComponentBatchRemoveA;
+import top.kgame.lib.ecstest.entity.remove.batch.component.ComponentBatchRemoveB;
+
+import java.util.Collection;
+import java.util.List;
+
+@EntityFactoryAttribute
+public class EntityBatchRemoveFactoryAB extends BaseEntityFactory {
+
+    @Override
+    public int typeId() {
+        return 2;
+    }
+
+    @Override
+    protected Collection<EcsComponent> generateComponent() {
+        return List.of(new ComponentBatchRemoveA(), new ComponentBatchRemoveB());
+    }
+}
@@ -0,0 +1,20 @@
+package top.kgame.lib.ecstest.entity.remove.batch.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.entity.remove.batch.component.ComponentBatchRemoveA;
+
+/**
+ * id为3的倍数的Entity在第一次更新时请求销毁，重复请求会被忽略
+ */
+public class SystemBatchRemoveUpdate extends EcsUpdateSystemOne<ComponentBatchRemoveA> {
+
+    @Override
+    protected void update(Entity entity, ComponentBatchRemoveA component) {
+        component.value++;
+        if (component.id % 3 == 0) {
+            getWorld().requestDestroyEntity(entity);
+            getWorld().requestDestroyEntity(entity);
+        }
+    }
+}
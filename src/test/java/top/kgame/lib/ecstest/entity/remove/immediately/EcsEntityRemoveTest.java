@@ -199,4 +199,24 @@ class EcsEntityRemoveTest {
         // 清理资源
         ecsWorld.close();
     }
-} 
\ No newline at end of file
+
+    @Test
+    void reuseIndexAfterDestroy() {
+        Entity e1 = ecsWorld.createEntity(1);
+        long e1Handle = e1.getHandle();
+        assert ecsWorld.getEntity(e1Handle) == e1;
+
+        ecsWorld.requestDestroyEntity(e1);
+        ecsWorld.update(0);
+        assert ecsWorld.getEntity(e1Handle) == null;
+
+        // index被复用，旧句柄仍然失效
+        Entity e12 = ecsWorld.createEntity(12);
+        assert e12.getIndex() == e1.getIndex();
+        assert e12.getHandle() != e1Handle;
+        assert ecsWorld.getEntity(e1Handle) == null;
+        assert ecsWorld.getEntity(e12.getHandle()) == e12;
+        assert ecsWorld.getAllEntity().size() == 1;
+        ecsWorld.close();
+    }
+}
@@ -0,0 +1,54 @@
+package top.kgame.lib.ecstest.entity.remove.lazy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.component.DestroyingComponent;
+import top.kgame.lib.ecstest.entity.remove.lazy.component.ComponentLazyDestroy;
+import top.kgame.lib.ecstest.entity.remove.lazy.system.SystemLazyDestroyObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 请求销毁之后才创建关注DestroyingComponent的EntityGroup
+ */
+class EcsEntityLazyDestroyTest {
+    private EcsWorld ecsWorld;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsEntityLazyDestroyTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+        SystemLazyDestroyObserver.matchCount = -1;
+    }
+
+    @Test
+    void tagPendingEntitiesForLateGroup() {
+        final int count = 10;
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Entity entity = ecsWorld.createEntity(1);
+            entity.getComponent(ComponentLazyDestroy.class).id = i;
+            entities.add(entity);
+        }
+        ecsWorld.update(1);
+        // 请求销毁在EntityGroup创建之前，创建时补充添加DestroyingComponent
+        assert SystemLazyDestroyObserver.matchCount == count / 2;
+        for (int i = 0; i < count; i++) {
+            Entity entity = entities.get(i);
+            if (i % 2 == 0) {
+                assert ecsWorld.getEntity(entity.getHandle()) == null;
+            } else {
+                assert !entity.hasComponent(DestroyingComponent.class);
+            }
+        }
+
+        // 之后的销毁请求直接添加DestroyingComponent
+        ecsWorld.requestDestroyEntity(entities.get(1));
+        assert entities.get(1).hasComponent(DestroyingComponent.class);
+        ecsWorld.close();
+    }
+}
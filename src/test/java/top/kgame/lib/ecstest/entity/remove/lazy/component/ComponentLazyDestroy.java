@@ -0,0 +1,7 @@
+package top.kgame.lib.ecstest.entity.remove.lazy.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentLazyDestroy implements EcsComponent {
+    public int id = 0;
+}
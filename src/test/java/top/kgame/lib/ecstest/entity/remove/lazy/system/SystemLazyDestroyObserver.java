@@ -0,0 +1,48 @@
+package top.kgame.lib.ecstest.entity.remove.lazy.system;
+
+import top.kgame.lib.ecs.EcsSystem;
+import top.kgame.lib.ecs.annotation.AlwaysUpdate;
+import top.kgame.lib.ecs.annotation.UpdateAfterSystem;
+import top.kgame.lib.ecs.core.ComponentMatchParam;
+import top.kgame.lib.ecs.core.ComponentTypeQuery;
+import top.kgame.lib.ecs.extensions.component.DestroyingComponent;
+import top.kgame.lib.ecstest.entity.remove.lazy.component.ComponentLazyDestroy;
+
+import java.util.List;
+
+/**
+ * 第一次更新时才创建关注DestroyingComponent的EntityGroup
+ */
+@AlwaysUpdate
+@UpdateAfterSystem(systemTypes = SystemLazyDestroyRequest.class)
+public class SystemLazyDestroyObserver extends EcsSystem {
+    public static int matchCount = -1;
+
+    @Override
+    protected void onInit() {
+
+    }
+
+    @Override
+    protected void onStart() {
+
+    }
+
+    @Override
+    protected void onUpdate() {
+        configEntityFilter(ComponentTypeQuery.generate(List.of(
+                ComponentMatchParam.additive(getWorld(), ComponentLazyDestroy.class),
+                ComponentMatchParam.additive(getWorld(), DestroyingComponent.class))));
+        matchCount = getAllMatchEntity().size();
+    }
+
+    @Override
+    protected void onStop() {
+
+    }
+
+    @Override
+    protected void onDestroy() {
+
+    }
+}
@@ -0,0 +1,18 @@
+package top.kgame.lib.ecstest.entity.remove.lazy.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.entity.remove.lazy.component.ComponentLazyDestroy;
+
+/**
+ * id为偶数的Entity在第一次更新时请求销毁
+ */
+public class SystemLazyDestroyRequest extends EcsUpdateSystemOne<ComponentLazyDestroy> {
+
+    @Override
+    protected void update(Entity entity, ComponentLazyDestroy component) {
+        if (component.id % 2 == 0) {
+            getWorld().requestDestroyEntity(entity);
+        }
+    }
+}
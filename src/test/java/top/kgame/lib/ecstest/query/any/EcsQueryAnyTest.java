@@ -0,0 +1,49 @@
+package top.kgame.lib.ecstest.query.any;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecstest.query.any.component.ComponentAnyA;
+import top.kgame.lib.ecstest.query.any.component.ComponentAnyData;
+
+/**
+ * ComponentTypeQuery any条件匹配测试用例
+ */
+class EcsQueryAnyTest {
+    private EcsWorld ecsWorld;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsQueryAnyTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+    }
+
+    @Test
+    void matchAnyComponent() {
+        Entity entityA = ecsWorld.createEntity(1);
+        Entity entityB = ecsWorld.createEntity(2);
+        Entity entityNone = ecsWorld.createEntity(3);
+
+        final int interval = 33;
+        long currentTime = 0;
+        final int updateCount = 10;
+        for (int i = 0; i < updateCount; i++) {
+            ecsWorld.update(currentTime);
+            currentTime += interval;
+        }
+        assert entityA.getComponent(ComponentAnyData.class).updateCount == updateCount;
+        assert entityB.getComponent(ComponentAnyData.class).updateCount == updateCount;
+        assert entityNone.getComponent(ComponentAnyData.class).updateCount == 0;
+
+        entityNone.addComponent(new ComponentAnyA());
+        for (int i = 0; i < updateCount; i++) {
+            ecsWorld.update(currentTime);
+            currentTime += interval;
+        }
+        assert entityA.getComponent(ComponentAnyData.class).updateCount == updateCount * 2;
+        assert entityNone.getComponent(ComponentAnyData.class).updateCount == updateCount;
+        ecsWorld.close();
+    }
+}
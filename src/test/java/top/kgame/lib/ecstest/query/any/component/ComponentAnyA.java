@@ -0,0 +1,6 @@
+package top.kgame.lib.ecstest.query.any.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentAnyA implements EcsComponent {
+}
@@ -0,0 +1,7 @@
+package top.kgame.lib.ecstest.query.any.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentAnyData implements EcsComponent {
+    public int updateCount = 0;
+}
@@ -0,0 +1,23 @@
+package top.kgame.lib.ecstest.query.any.entity;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.extensions.entity.BaseEntityFactory;
+import top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute;
+import top.kgame.lib.ecstest.query.any.component.ComponentAnyData;
+
+import java.util.Collection;
+import java.util.List;
+
+@EntityFactoryAttribute
+public class EntityAnyFactoryNone extends BaseEntityFactory {
+
+    @Override
+    public int typeId() {
+        return 3;
+    }
+
+    @Override
+    protected Collection<EcsComponent> generateComponent() {
+        return List.of(new ComponentAnyData());
+    }
+}
@@ -0,0 +1,28 @@
+package top.kgame.lib.ecstest.query.any.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.ComponentMatchParam;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.query.any.component.ComponentAnyA;
+import top.kgame.lib.ecstest.query.any.component.ComponentAnyB;
+import top.kgame.lib.ecstest.query.any.component.ComponentAnyData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class SystemAnyMatch extends EcsUpdateSystemOne<ComponentAnyData> {
+
+    @Override
+    protected Collection<ComponentMatchParam<?>> getMatchComponent() {
+        List<ComponentMatchParam<?>> result = new ArrayList<>(super.getMatchComponent());
+        result.add(ComponentMatchParam.any(getWorld(), ComponentAnyA.class));
+        result.add(ComponentMatchParam.any(getWorld(), ComponentAnyB.class));
+        return result;
+    }
+
+    @Override
+    protected void update(Entity entity, ComponentAnyData component) {
+        component.updateCount++;
+    }
+}
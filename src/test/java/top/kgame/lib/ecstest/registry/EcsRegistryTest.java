@@ -0,0 +1,93 @@
+package top.kgame.lib.ecstest.registry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.core.EcsClassScanner;
+import top.kgame.lib.ecs.core.EcsRegistry;
+import top.kgame.lib.ecstest.registry.component.ComponentRegistryA;
+import top.kgame.lib.ecstest.registry.component.ComponentRegistryB;
+
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * 编译期注册表测试用例
+ */
+class EcsRegistryTest {
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+    }
+
+    @Test
+    void registryOnlyCoversOwnRoot() throws Exception {
+        Path tempDir = Files.createTempDirectory("ecs-registry-test");
+        // 带有注册表的jar
+        Path registryJar = tempDir.resolve("registry.jar");
+        writeJar(registryJar, ComponentRegistryA.class,
+                EcsRegistry.KIND_COMPONENT + " " + ComponentRegistryA.class.getName() + "\n");
+        // 没有注册表的jar
+        Path plainJar = tempDir.resolve("plain.jar");
+        writeJar(plainJar, ComponentRegistryB.class, null);
+
+        URL mainClasses = EcsComponent.class.getProtectionDomain().getCodeSource().getLocation();
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try (URLClassLoader jarClassLoader = new URLClassLoader(new URL[]{registryJar.toUri().toURL(),
+                plainJar.toUri().toURL(), mainClasses}, ClassLoader.getPlatformClassLoader())) {
+            thread.setContextClassLoader(jarClassLoader);
+            EcsRegistry registry = EcsRegistry.getInstance(jarClassLoader);
+            // 注册表按类加载器区分
+            assert registry != EcsRegistry.getInstance(contextClassLoader);
+            assert registry == EcsRegistry.getInstance(jarClassLoader);
+            assert registry.getComponents(EcsRegistryTest.class.getPackageName()).size() == 1;
+            assert registry.covers(jarClassLoader.getResource(classEntry(ComponentRegistryA.class)));
+            assert !registry.covers(jarClassLoader.getResource(classEntry(ComponentRegistryB.class)));
+
+            // 带有注册表的jar按注册表加载，没有注册表的jar仍然扫描
+            EcsClassScanner scanner = EcsClassScanner.getInstance(EcsRegistryTest.class.getPackageName());
+            assert scanner.findComponentTypeIndex(jarClassLoader.loadClass(ComponentRegistryA.class.getName())) >= 0;
+            assert scanner.findComponentTypeIndex(jarClassLoader.loadClass(ComponentRegistryB.class.getName())) >= 0;
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static String classEntry(Class<?> clazz) {
+        return clazz.getName().replace('.', '/') + ".class";
+    }
+
+    private static void writeJar(Path jarPath, Class<?> clazz, String registry) throws Exception {
+        Path classesDir = Paths.get(EcsRegistryTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        String entryName = classEntry(clazz);
+        try (OutputStream out = Files.newOutputStream(jarPath);
+             JarOutputStream jar = new JarOutputStream(out)) {
+            // 类加载器通过目录条目查找包资源
+            for (int index = entryName.indexOf('/'); index >= 0; index = entryName.indexOf('/', index + 1)) {
+                jar.putNextEntry(new JarEntry(entryName.substring(0, index + 1)));
+                jar.closeEntry();
+            }
+            jar.putNextEntry(new JarEntry(entryName));
+            Files.copy(classesDir.resolve(entryName), jar);
+            jar.closeEntry();
+            if (registry != null) {
+                jar.putNextEntry(new JarEntry("META-INF/"));
+                jar.closeEntry();
+                jar.putNextEntry(new JarEntry("META-INF/kgame-ecs/"));
+                jar.closeEntry();
+                jar.putNextEntry(new JarEntry(EcsRegistry.RESOURCE_NAME));
+                jar.write(registry.getBytes(StandardCharsets.UTF_8));
+                jar.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package top.kgame.lib.ecstest.registry.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentRegistryA implements EcsComponent {
+}
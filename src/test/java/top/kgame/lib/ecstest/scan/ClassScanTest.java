@@ -0,0 +1,118 @@
+package top.kgame.lib.ecstest.scan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.tools.ClassUtils;
+import top.kgame.lib.ecstest.scan.component.ComponentScanBase;
+import top.kgame.lib.ecstest.scan.component.ComponentScanChild;
+import top.kgame.lib.ecstest.scan.component.ComponentScanStatic;
+
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * 包扫描测试用例
+ */
+class ClassScanTest {
+    private static final String SCAN_PACKAGE = ClassScanTest.class.getPackageName();
+    private static final String CACHE_DIR_PROPERTY = "top.kgame.ecs.scanCacheDir";
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+    }
+
+    @Test
+    void scanWithoutInitialize() {
+        Set<Class<?>> classes = ClassUtils.getClassFromParent(SCAN_PACKAGE, EcsComponent.class);
+        assert classes.size() == 3;
+        assert classes.contains(ComponentScanStatic.class);
+        assert classes.contains(ComponentScanBase.class);
+        assert classes.contains(ComponentScanChild.class);
+        assert !ScanInitRecorder.initialized;
+    }
+
+    @Test
+    void scanJarWithCache() throws Exception {
+        Path tempDir = Files.createTempDirectory("ecs-scan-test");
+        Path jarPath = tempDir.resolve("scan.jar");
+        Path cacheDir = tempDir.resolve("cache");
+        writeJar(jarPath);
+
+        URL mainClasses = EcsComponent.class.getProtectionDomain().getCodeSource().getLocation();
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        String cacheDirProperty = System.getProperty(CACHE_DIR_PROPERTY);
+        System.clearProperty(CACHE_DIR_PROPERTY);
+        try (URLClassLoader jarClassLoader = new URLClassLoader(new URL[]{jarPath.toUri().toURL(), mainClasses},
+                ClassLoader.getPlatformClassLoader())) {
+            thread.setContextClassLoader(jarClassLoader);
+            // 默认不缓存
+            assert ClassUtils.getClassFromParent(SCAN_PACKAGE, EcsComponent.class).size() == 3;
+            assert !Files.exists(cacheDir);
+            System.setProperty(CACHE_DIR_PROPERTY, cacheDir.toString());
+            Set<String> scanned = classNames(ClassUtils.getClassFromParent(SCAN_PACKAGE, EcsComponent.class));
+            assert scanned.equals(Set.of(ComponentScanStatic.class.getName(), ComponentScanBase.class.getName(),
+                    ComponentScanChild.class.getName()));
+            try (Stream<Path> cacheFiles = Files.list(cacheDir)) {
+                assert cacheFiles.count() == 1;
+            }
+            if (cacheDir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                assert Files.getPosixFilePermissions(cacheDir).equals(PosixFilePermissions.fromString("rwx------"));
+            }
+            // 第二次扫描读取缓存
+            Set<String> cached = classNames(ClassUtils.getClassFromParent(SCAN_PACKAGE, EcsComponent.class));
+            assert cached.equals(scanned);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+            if (cacheDirProperty == null) {
+                System.clearProperty(CACHE_DIR_PROPERTY);
+            } else {
+                System.setProperty(CACHE_DIR_PROPERTY, cacheDirProperty);
+            }
+        }
+    }
+
+    private static Set<String> classNames(Set<Class<?>> classes) {
+        Set<String> names = new TreeSet<>();
+        for (Class<?> clazz : classes) {
+            names.add(clazz.getName());
+        }
+        return names;
+    }
+
+    private static void writeJar(Path jarPath) throws Exception {
+        Path classesDir = Paths.get(ClassScanTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        String packagePath = SCAN_PACKAGE.replace('.', '/');
+        try (OutputStream out = Files.newOutputStream(jarPath);
+             JarOutputStream jar = new JarOutputStream(out);
+             Stream<Path> files = Files.walk(classesDir.resolve(packagePath))) {
+            // 类加载器通过目录条目查找包资源
+            for (int index = packagePath.indexOf('/'); index >= 0; index = packagePath.indexOf('/', index + 1)) {
+                jar.putNextEntry(new JarEntry(packagePath.substring(0, index + 1)));
+                jar.closeEntry();
+            }
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String entryName = classesDir.relativize(file).toString().replace('\\', '/');
+                if (Files.isDirectory(file)) {
+                    jar.putNextEntry(new JarEntry(entryName + "/"));
+                } else {
+                    jar.putNextEntry(new JarEntry(entryName));
+                    Files.copy(file, jar);
+                }
+                jar.closeEntry();
+            }
+        }
+    }
+}
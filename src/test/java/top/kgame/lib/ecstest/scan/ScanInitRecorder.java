@@ -0,0 +1,8 @@
+package top.kgame.lib.ecstest.scan;
+
+/**
+ * 记录扫描过程中是否执行了组件类的静态初始化
+ */
+public class ScanInitRecorder {
+    public static volatile boolean initialized = false;
+}
@@ -0,0 +1,6 @@
+package top.kgame.lib.ecstest.scan.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public abstract class ComponentScanBase implements EcsComponent {
+}
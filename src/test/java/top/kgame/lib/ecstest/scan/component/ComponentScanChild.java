@@ -0,0 +1,4 @@
+package top.kgame.lib.ecstest.scan.component;
+
+public class ComponentScanChild extends ComponentScanBase {
+}
@@ -0,0 +1,10 @@
+package top.kgame.lib.ecstest.scan.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecstest.scan.ScanInitRecorder;
+
+public class ComponentScanStatic implements EcsComponent {
+    static {
+        ScanInitRecorder.initialized = true;
+    }
+}
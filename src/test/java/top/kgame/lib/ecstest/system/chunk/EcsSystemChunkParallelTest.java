@@ -0,0 +1,63 @@
+package top.kgame.lib.ecstest.system.chunk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.EntityArchetype;
+import top.kgame.lib.ecstest.system.chunk.component.ComponentChunkCounter;
+import top.kgame.lib.ecstest.system.chunk.component.ComponentChunkMarker;
+import top.kgame.lib.ecstest.system.chunk.system.ChunkUpdateRecorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * System按存储块并行遍历测试用例
+ */
+class EcsSystemChunkParallelTest {
+    private EcsWorld ecsWorld;
+    private ForkJoinPool executor;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsSystemChunkParallelTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+        executor = new ForkJoinPool(4);
+        ecsWorld.setParallelExecutor(executor);
+    }
+
+    @Test
+    void updateChunksInParallel() {
+        final int entityCount = EntityArchetype.CHUNK_CAPACITY * 4 + 10;
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < entityCount; i++) {
+            Entity entity = ecsWorld.createEntity(1);
+            entity.getComponent(ComponentChunkCounter.class).id = i;
+            entities.add(entity);
+        }
+        final int updateCount = 5;
+        long currentTime = 0;
+        for (int i = 0; i < updateCount; i++) {
+            ecsWorld.update(currentTime);
+            currentTime += 33;
+            assert !ecsWorld.isParallelUpdating();
+        }
+        System.out.println("update threads: " + ChunkUpdateRecorder.updateThreads);
+
+        for (Entity entity : entities) {
+            assert entity.getComponent(ComponentChunkCounter.class).value == updateCount;
+            assert entity.hasComponent(ComponentChunkMarker.class);
+        }
+        // 并行遍历期间直接修改结构被拒绝，各批次的延迟命令按遍历顺序回放
+        assert ChunkUpdateRecorder.structuralChangeRejected;
+        assert ChunkUpdateRecorder.commandOrder.size() == entityCount;
+        for (int i = 0; i < entityCount; i++) {
+            assert ChunkUpdateRecorder.commandOrder.get(i) == i;
+        }
+        ecsWorld.close();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,8 @@
+package top.kgame.lib.ecstest.system.chunk.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentChunkCounter implements EcsComponent {
+    public int id = 0;
+    public int value = 0;
+}
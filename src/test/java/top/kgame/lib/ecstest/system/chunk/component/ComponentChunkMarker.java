@@ -0,0 +1,6 @@
+package top.kgame.lib.ecstest.system.chunk.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentChunkMarker implements EcsComponent {
+}
@@ -0,0 +1,16 @@
+package top.kgame.lib.ecstest.system.chunk.system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录按存储块并行遍历的执行情况
+ */
+public class ChunkUpdateRecorder {
+    public static final Set<String> updateThreads = ConcurrentHashMap.newKeySet();
+    //延迟命令回放时按顺序记录的ComponentChunkCounter.id
+    public static final List<Integer> commandOrder = new ArrayList<>();
+    public static volatile boolean structuralChangeRejected = false;
+}
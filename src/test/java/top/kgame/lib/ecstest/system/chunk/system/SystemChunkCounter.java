@@ -0,0 +1,30 @@
+package top.kgame.lib.ecstest.system.chunk.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.annotation.ParallelChunkUpdate;
+import top.kgame.lib.ecs.command.EcsCommandScope;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.system.chunk.component.ComponentChunkCounter;
+import top.kgame.lib.ecstest.system.chunk.component.ComponentChunkMarker;
+
+@ParallelChunkUpdate(chunksPerBatch = 1)
+public class SystemChunkCounter extends EcsUpdateSystemOne<ComponentChunkCounter> {
+
+    @Override
+    protected void update(Entity entity, ComponentChunkCounter counter) {
+        ChunkUpdateRecorder.updateThreads.add(Thread.currentThread().getName());
+        counter.value++;
+        if (counter.value != 1) {
+            return;
+        }
+        try {
+            entity.addComponent(new ComponentChunkMarker());
+        } catch (IllegalStateException e) {
+            ChunkUpdateRecorder.structuralChangeRejected = true;
+            addDelayCommand(() -> {
+                ChunkUpdateRecorder.commandOrder.add(counter.id);
+                entity.addComponent(new ComponentChunkMarker());
+            }, EcsCommandScope.SYSTEM);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package top.kgame.lib.ecstest.system.generic;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemTwo;
+import top.kgame.lib.ecs.tools.EcsTools;
+import top.kgame.lib.ecstest.system.generic.component.ComponentGenericA;
+import top.kgame.lib.ecstest.system.generic.component.ComponentGenericB;
+import top.kgame.lib.ecstest.system.generic.system.SystemGenericUpdate;
+
+/**
+ * 多层继承的泛型System测试用例
+ */
+class EcsSystemGenericTest {
+    private EcsWorld ecsWorld;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsSystemGenericTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+    }
+
+    @Test
+    void resolveTypeArgumentsThroughHierarchy() {
+        Class<?>[] typeArguments = EcsTools.getTypeArguments(SystemGenericUpdate.class, EcsUpdateSystemTwo.class);
+        assert typeArguments.length == 2;
+        assert typeArguments[0] == ComponentGenericA.class;
+        assert typeArguments[1] == ComponentGenericB.class;
+
+        Entity entity = ecsWorld.createEntity(1);
+        final int updateCount = 3;
+        for (int i = 0; i < updateCount; i++) {
+            ecsWorld.update(i);
+        }
+        assert entity.getComponent(ComponentGenericA.class).value == updateCount;
+        assert entity.getComponent(ComponentGenericB.class).value == updateCount * 10;
+        ecsWorld.close();
+    }
+}
@@ -0,0 +1,7 @@
+package top.kgame.lib.ecstest.system.generic.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentGenericA implements EcsComponent {
+    public int value;
+}
@@ -0,0 +1,24 @@
+package top.kgame.lib.ecstest.system.generic.entity;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.extensions.entity.BaseEntityFactory;
+import top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute;
+import top.kgame.lib.ecstest.system.generic.component.ComponentGenericA;
+import top.kgame.lib.ecstest.system.generic.component.ComponentGenericB;
+
+import java.util.Collection;
+import java.util.List;
+
+@EntityFactoryAttribute
+public class EntityGenericFactory extends BaseEntityFactory {
+
+    @Override
+    public int typeId() {
+        return 1;
+    }
+
+    @Override
+    protected Collection<EcsComponent> generateComponent() {
+        return List.of(new ComponentGenericA(), new ComponentGenericB());
+    }
+}
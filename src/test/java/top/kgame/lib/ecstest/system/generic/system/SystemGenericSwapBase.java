@@ -0,0 +1,10 @@
+package top.kgame.lib.ecstest.system.generic.system;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemTwo;
+
+/**
+ * 中间层继续使用泛型，并交换泛型参数顺序
+ */
+public abstract class SystemGenericSwapBase<X extends EcsComponent, Y extends EcsComponent> extends EcsUpdateSystemTwo<Y, X> {
+}
@@ -0,0 +1,14 @@
+package top.kgame.lib.ecstest.system.generic.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecstest.system.generic.component.ComponentGenericA;
+import top.kgame.lib.ecstest.system.generic.component.ComponentGenericB;
+
+public class SystemGenericUpdate extends SystemGenericSwapBase<ComponentGenericB, ComponentGenericA> {
+
+    @Override
+    protected void update(Entity entity, ComponentGenericA a, ComponentGenericB b) {
+        a.value += 1;
+        b.value += 10;
+    }
+}
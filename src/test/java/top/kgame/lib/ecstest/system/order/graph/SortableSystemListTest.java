@@ -0,0 +1,77 @@
+package top.kgame.lib.ecstest.system.order.graph;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.core.SortableSystemList;
+import top.kgame.lib.ecs.exception.SystemCircularDependencyException;
+import top.kgame.lib.ecstest.system.order.graph.system.*;
+
+import java.util.List;
+
+/**
+ * System依赖排序测试用例
+ */
+class SortableSystemListTest {
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+    }
+
+    @Test
+    void fullSort() {
+        SortableSystemList list = new SortableSystemList();
+        list.addSystem(new SystemGraphB());
+        list.addSystem(new SystemGraphF());
+        list.addSystem(new SystemGraphA());
+        list.addSystem(new SystemGraphC());
+        assert list.getSortedSystemClasses().equals(List.of(SystemGraphC.class, SystemGraphA.class,
+                SystemGraphB.class, SystemGraphF.class));
+    }
+
+    @Test
+    void incrementalSort() {
+        SortableSystemList list = new SortableSystemList();
+        SystemGraphA systemA = new SystemGraphA();
+        list.addSystem(systemA);
+        list.addSystem(new SystemGraphB());
+        list.addSystem(new SystemGraphE());
+        list.addSystem(new SystemGraphF());
+        assert list.getSortedSystemClasses().equals(List.of(SystemGraphA.class, SystemGraphB.class,
+                SystemGraphE.class, SystemGraphF.class));
+        int version = list.getSortVersion();
+
+        // G需要在F之后、E之前，只调整E、F
+        list.addSystem(new SystemGraphG());
+        assert list.getSortedSystemClasses().equals(List.of(SystemGraphA.class, SystemGraphB.class,
+                SystemGraphF.class, SystemGraphG.class, SystemGraphE.class));
+        assert list.getSortVersion() > version;
+
+        list.addSystem(new SystemGraphC());
+        assert list.getSortedSystemClasses().equals(List.of(SystemGraphC.class, SystemGraphA.class,
+                SystemGraphB.class, SystemGraphF.class, SystemGraphG.class, SystemGraphE.class));
+
+        // 移除不改变其余System的顺序
+        list.removeSystem(systemA);
+        assert list.getSortedSystemClasses().equals(List.of(SystemGraphC.class, SystemGraphB.class,
+                SystemGraphF.class, SystemGraphG.class, SystemGraphE.class));
+    }
+
+    @Test
+    void circularDependency() {
+        SortableSystemList list = new SortableSystemList();
+        list.addSystem(new SystemGraphA());
+        list.addSystem(new SystemGraphLoopA());
+        list.addSystem(new SystemGraphLoopB());
+        try {
+            list.tryReorderSystem();
+            assert false;
+        } catch (SystemCircularDependencyException e) {
+            System.out.println(e.getMessage());
+            String loopA = SystemGraphLoopA.class.getName();
+            String loopB = SystemGraphLoopB.class.getName();
+            assert e.getMessage().endsWith(loopA + " -> " + loopB + " -> " + loopA)
+                    || e.getMessage().endsWith(loopB + " -> " + loopA + " -> " + loopB);
+        }
+    }
+}
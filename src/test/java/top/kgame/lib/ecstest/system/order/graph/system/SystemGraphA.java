@@ -0,0 +1,4 @@
+package top.kgame.lib.ecstest.system.order.graph.system;
+
+public class SystemGraphA extends SystemGraphBase {
+}
@@ -0,0 +1,33 @@
+package top.kgame.lib.ecstest.system.order.graph.system;
+
+import top.kgame.lib.ecs.EcsSystem;
+
+/**
+ * 只用于排序测试，不加入World
+ */
+public abstract class SystemGraphBase extends EcsSystem {
+    @Override
+    protected void onInit() {
+
+    }
+
+    @Override
+    protected void onStart() {
+
+    }
+
+    @Override
+    protected void onUpdate() {
+
+    }
+
+    @Override
+    protected void onStop() {
+
+    }
+
+    @Override
+    protected void onDestroy() {
+
+    }
+}
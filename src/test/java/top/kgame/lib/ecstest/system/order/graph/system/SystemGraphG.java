@@ -0,0 +1,9 @@
+package top.kgame.lib.ecstest.system.order.graph.system;
+
+import top.kgame.lib.ecs.annotation.UpdateAfterSystem;
+import top.kgame.lib.ecs.annotation.UpdateBeforeSystem;
+
+@UpdateAfterSystem(systemTypes = SystemGraphF.class)
+@UpdateBeforeSystem(systemTypes = SystemGraphE.class)
+public class SystemGraphG extends SystemGraphBase {
+}
@@ -0,0 +1,7 @@
+package top.kgame.lib.ecstest.system.order.graph.system;
+
+import top.kgame.lib.ecs.annotation.UpdateAfterSystem;
+
+@UpdateAfterSystem(systemTypes = SystemGraphLoopB.class)
+public class SystemGraphLoopA extends SystemGraphBase {
+}
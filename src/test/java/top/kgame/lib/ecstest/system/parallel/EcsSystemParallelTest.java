@@ -0,0 +1,76 @@
+package top.kgame.lib.ecstest.system.parallel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelA;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelB;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelMarker;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelSum;
+import top.kgame.lib.ecstest.system.parallel.system.ParallelUpdateRecorder;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SystemGroup并行调度测试用例
+ */
+class EcsSystemParallelTest {
+    private EcsWorld ecsWorld;
+    private ForkJoinPool executor;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        ParallelUpdateRecorder.reset();
+        String packageName = EcsSystemParallelTest.class.getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+        executor = new ForkJoinPool(2);
+        ecsWorld.setParallelExecutor(executor);
+    }
+
+    @Test
+    void updateInParallel() {
+        Entity entity = ecsWorld.createEntity(1);
+        final int interval = 33;
+        final int updateCount = 10;
+        long currentTime = 0;
+        for (int i = 0; i < updateCount; i++) {
+            ecsWorld.update(currentTime);
+            currentTime += interval;
+            assert !ecsWorld.isParallelUpdating();
+        }
+
+        assert ParallelUpdateRecorder.executedConcurrently;
+        assert entity.getComponent(ComponentParallelA.class).value == updateCount;
+        assert entity.getComponent(ComponentParallelB.class).value == updateCount;
+        // 读写冲突的System在写入完成后执行
+        assert entity.getComponent(ComponentParallelSum.class).value == updateCount * 2;
+        // 并行期间直接修改结构被拒绝，延迟命令在本批System完成后回放
+        assert ParallelUpdateRecorder.structuralChangeRejected;
+        assert entity.hasComponent(ComponentParallelMarker.class);
+        // 并行期间不能直接写入World的延迟命令
+        assert ParallelUpdateRecorder.worldCommandRejected;
+        ecsWorld.close();
+        executor.shutdown();
+    }
+
+    @Test
+    void updateInPoolWorker() throws Exception {
+        Entity entity = ecsWorld.createEntity(1);
+        // 只有一个工作线程，World在该线程中更新时等待并行批次不能占住线程池
+        ForkJoinPool singleExecutor = new ForkJoinPool(1);
+        ecsWorld.setParallelExecutor(singleExecutor);
+        try {
+            singleExecutor.submit(() -> ecsWorld.update(0)).get(30, TimeUnit.SECONDS);
+            assert entity.getComponent(ComponentParallelA.class).value == 1;
+            assert entity.getComponent(ComponentParallelB.class).value == 1;
+            assert entity.getComponent(ComponentParallelSum.class).value == 2;
+        } finally {
+            ecsWorld.close();
+            singleExecutor.shutdown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package top.kgame.lib.ecstest.system.parallel.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+/**
+ * 多个System只读取的共享配置
+ */
+public class ComponentParallelConfig implements EcsComponent {
+    public int step = 1;
+}
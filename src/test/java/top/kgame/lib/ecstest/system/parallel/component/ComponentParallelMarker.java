@@ -0,0 +1,6 @@
+package top.kgame.lib.ecstest.system.parallel.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentParallelMarker implements EcsComponent {
+}
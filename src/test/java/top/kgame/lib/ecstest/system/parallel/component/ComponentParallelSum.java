@@ -0,0 +1,7 @@
+package top.kgame.lib.ecstest.system.parallel.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentParallelSum implements EcsComponent {
+    public int value = 0;
+}
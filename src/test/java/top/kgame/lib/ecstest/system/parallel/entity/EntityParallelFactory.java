@@ -0,0 +1,27 @@
+package top.kgame.lib.ecstest.system.parallel.entity;
+
+import top.kgame.lib.ecs.EcsComponent;
+import top.kgame.lib.ecs.extensions.entity.BaseEntityFactory;
+import top.kgame.lib.ecs.extensions.entity.EntityFactoryAttribute;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelA;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelB;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelConfig;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelSum;
+
+import java.util.Collection;
+import java.util.List;
+
+@EntityFactoryAttribute
+public class EntityParallelFactory extends BaseEntityFactory {
+
+    @Override
+    public int typeId() {
+        return 1;
+    }
+
+    @Override
+    protected Collection<EcsComponent> generateComponent() {
+        return List.of(new ComponentParallelA(), new ComponentParallelB(), new ComponentParallelSum(),
+                new ComponentParallelConfig());
+    }
+}
@@ -0,0 +1,18 @@
+package top.kgame.lib.ecstest.system.parallel.group;
+
+import top.kgame.lib.ecs.EcsSystemGroup;
+import top.kgame.lib.ecs.annotation.ParallelUpdate;
+
+@ParallelUpdate
+public class SysGroupParallel extends EcsSystemGroup {
+
+    @Override
+    protected void onStart() {
+
+    }
+
+    @Override
+    protected void onStop() {
+
+    }
+}
@@ -0,0 +1,54 @@
+package top.kgame.lib.ecstest.system.parallel.system;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 记录并行执行状态，供测试用例检查
+ */
+public class ParallelUpdateRecorder {
+    private static volatile CountDownLatch rendezvous = new CountDownLatch(2);
+    private static final AtomicInteger arrivals = new AtomicInteger();
+    public static volatile boolean executedConcurrently = false;
+    public static volatile boolean structuralChangeRejected = false;
+    public static volatile boolean worldCommandRejected = false;
+
+    public static void reset() {
+        rendezvous = new CountDownLatch(2);
+        arrivals.set(0);
+        executedConcurrently = false;
+        structuralChangeRejected = false;
+        worldCommandRejected = false;
+    }
+
+    /**
+     * 两个没有冲突的System互相等待，只有同时执行时先到达的System才能在超时前等到另一个
+     */
+    public static void awaitRendezvous() {
+        CountDownLatch latch = rendezvous;
+        boolean first = arrivals.incrementAndGet() == 1;
+        latch.countDown();
+        try {
+            // 在线程池中等待时允许线程池补充线程
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    latch.await(5, TimeUnit.SECONDS);
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return latch.getCount() == 0;
+                }
+            });
+            if (first && latch.getCount() == 0) {
+                executedConcurrently = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package top.kgame.lib.ecstest.system.parallel.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.annotation.ParallelSafe;
+import top.kgame.lib.ecs.annotation.UpdateAfterSystem;
+import top.kgame.lib.ecs.annotation.UpdateInGroup;
+import top.kgame.lib.ecs.command.EcsCommandScope;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemThree;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelA;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelB;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelMarker;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelSum;
+import top.kgame.lib.ecstest.system.parallel.group.SysGroupParallel;
+
+/**
+ * 与两个写入System存在读写冲突，按照声明的顺序在它们之后执行
+ */
+@UpdateInGroup(SysGroupParallel.class)
+@ParallelSafe
+@UpdateAfterSystem(systemTypes = {SystemParallelWriteA.class, SystemParallelWriteB.class})
+public class SystemParallelSum extends EcsUpdateSystemThree<ComponentParallelA, ComponentParallelB, ComponentParallelSum> {
+
+    @Override
+    protected void update(Entity entity, ComponentParallelA a, ComponentParallelB b, ComponentParallelSum sum) {
+        sum.value = a.value + b.value;
+        try {
+            getWorld().addDelayCommand(() -> {});
+        } catch (IllegalStateException e) {
+            ParallelUpdateRecorder.worldCommandRejected = true;
+        }
+        if (entity.hasComponent(ComponentParallelMarker.class)) {
+            return;
+        }
+        try {
+            entity.addComponent(new ComponentParallelMarker());
+        } catch (IllegalStateException e) {
+            ParallelUpdateRecorder.structuralChangeRejected = true;
+            addComponentDelay(entity, new ComponentParallelMarker(), EcsCommandScope.SYSTEM);
+        }
+    }
+}
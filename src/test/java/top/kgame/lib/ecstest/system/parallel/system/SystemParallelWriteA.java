@@ -0,0 +1,23 @@
+package top.kgame.lib.ecstest.system.parallel.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.annotation.ParallelSafe;
+import top.kgame.lib.ecs.annotation.UpdateInGroup;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemTwo;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelA;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelConfig;
+import top.kgame.lib.ecstest.system.parallel.group.SysGroupParallel;
+
+/**
+ * 与SystemParallelWriteB都只读取ComponentParallelConfig，可以同时执行
+ */
+@UpdateInGroup(SysGroupParallel.class)
+@ParallelSafe(readOnly = ComponentParallelConfig.class)
+public class SystemParallelWriteA extends EcsUpdateSystemTwo<ComponentParallelA, ComponentParallelConfig> {
+
+    @Override
+    protected void update(Entity entity, ComponentParallelA component, ComponentParallelConfig config) {
+        component.value += config.step;
+        ParallelUpdateRecorder.awaitRendezvous();
+    }
+}
@@ -0,0 +1,23 @@
+package top.kgame.lib.ecstest.system.parallel.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.annotation.ParallelSafe;
+import top.kgame.lib.ecs.annotation.UpdateInGroup;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemTwo;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelB;
+import top.kgame.lib.ecstest.system.parallel.component.ComponentParallelConfig;
+import top.kgame.lib.ecstest.system.parallel.group.SysGroupParallel;
+
+/**
+ * 与SystemParallelWriteA都只读取ComponentParallelConfig，可以同时执行
+ */
+@UpdateInGroup(SysGroupParallel.class)
+@ParallelSafe(readOnly = ComponentParallelConfig.class)
+public class SystemParallelWriteB extends EcsUpdateSystemTwo<ComponentParallelB, ComponentParallelConfig> {
+
+    @Override
+    protected void update(Entity entity, ComponentParallelB component, ComponentParallelConfig config) {
+        component.value += config.step;
+        ParallelUpdateRecorder.awaitRendezvous();
+    }
+}
@@ -0,0 +1,74 @@
+package top.kgame.lib.ecstest.system.phase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.core.TimingWheel;
+import top.kgame.lib.ecstest.system.phase.component.ComponentPhaseTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 间隔更新的时间单位、相位偏移和时间轮调度测试用例
+ */
+class EcsIntervalPhaseTest {
+    private EcsWorld ecsWorld;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = this.getClass().getPackage().getName();
+        ecsWorld = EcsWorld.generateInstance(packageName);
+    }
+
+    @Test
+    void updateWorld() {
+        Entity entity = ecsWorld.createEntity(1);
+        ComponentPhaseTrace trace = entity.getComponent(ComponentPhaseTrace.class);
+        for (long now = 0; now < 300; now++) {
+            ecsWorld.update(now);
+        }
+        // 间隔更新的System按排序插入每次都更新的System之间
+        assert trace.updates.subList(0, 3).equals(List.of("A0", "N0", "E0"));
+        assert updateTimes(trace, "A").equals(List.of(0L, 100L, 200L));
+        // 相位偏移50毫秒
+        assert updateTimes(trace, "B").equals(List.of(50L, 150L, 250L));
+        // 1.5毫秒向上取整为2毫秒
+        List<Long> nanoTimes = updateTimes(trace, "N");
+        assert nanoTimes.size() == 150;
+        assert nanoTimes.get(1) == 2L;
+        assert updateTimes(trace, "E").size() == 300;
+        ecsWorld.close();
+    }
+
+    @Test
+    void timingWheelSkipsEmptySlots() {
+        long start = 1_700_000_000_000L;
+        TimingWheel<String> wheel = new TimingWheel<>(start);
+        wheel.add("near", start + 3);
+        wheel.add("hour", start + 3_600_000L);
+        wheel.add("year", start + 365L * 24 * 3_600_000L);
+        List<String> expired = new ArrayList<>();
+        wheel.advance(start + 2, expired::add);
+        assert expired.isEmpty();
+        wheel.advance(start + 3_600_000L, expired::add);
+        assert expired.equals(List.of("near", "hour"));
+        wheel.advance(start + 365L * 24 * 3_600_000L - 1, expired::add);
+        assert wheel.size() == 1;
+        wheel.advance(start + 400L * 24 * 3_600_000L, expired::add);
+        assert expired.equals(List.of("near", "hour", "year"));
+        assert wheel.size() == 0;
+    }
+
+    private static List<Long> updateTimes(ComponentPhaseTrace trace, String prefix) {
+        List<Long> times = new ArrayList<>();
+        for (String update : trace.updates) {
+            if (update.startsWith(prefix)) {
+                times.add(Long.parseLong(update.substring(prefix.length())));
+            }
+        }
+        return times;
+    }
+}
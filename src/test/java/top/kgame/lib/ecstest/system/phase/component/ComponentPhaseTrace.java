@@ -0,0 +1,10 @@
+package top.kgame.lib.ecstest.system.phase.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ComponentPhaseTrace implements EcsComponent {
+    public final List<String> updates = new ArrayList<>();
+}
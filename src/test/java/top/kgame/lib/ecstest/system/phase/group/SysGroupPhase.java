@@ -0,0 +1,14 @@
+package top.kgame.lib.ecstest.system.phase.group;
+
+import top.kgame.lib.ecs.EcsSystemGroup;
+
+public class SysGroupPhase extends EcsSystemGroup {
+
+    @Override
+    protected void onStart() {
+    }
+
+    @Override
+    protected void onStop() {
+    }
+}
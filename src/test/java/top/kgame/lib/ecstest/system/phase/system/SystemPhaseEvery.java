@@ -0,0 +1,18 @@
+package top.kgame.lib.ecstest.system.phase.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.annotation.UpdateAfterSystem;
+import top.kgame.lib.ecs.annotation.UpdateInGroup;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.system.phase.component.ComponentPhaseTrace;
+import top.kgame.lib.ecstest.system.phase.group.SysGroupPhase;
+
+@UpdateInGroup(SysGroupPhase.class)
+@UpdateAfterSystem(systemTypes = SystemPhaseNano.class)
+public class SystemPhaseEvery extends EcsUpdateSystemOne<ComponentPhaseTrace> {
+
+    @Override
+    protected void update(Entity entity, ComponentPhaseTrace trace) {
+        trace.updates.add("E" + getWorld().getCurrentTime());
+    }
+}
@@ -0,0 +1,20 @@
+package top.kgame.lib.ecstest.system.phase.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.annotation.UpdateInGroup;
+import top.kgame.lib.ecs.annotation.UpdateIntervalTime;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.system.phase.component.ComponentPhaseTrace;
+import top.kgame.lib.ecstest.system.phase.group.SysGroupPhase;
+
+import java.util.concurrent.TimeUnit;
+
+@UpdateInGroup(SysGroupPhase.class)
+@UpdateIntervalTime(time = 1_500_000, unit = TimeUnit.NANOSECONDS)
+public class SystemPhaseNano extends EcsUpdateSystemOne<ComponentPhaseTrace> {
+
+    @Override
+    protected void update(Entity entity, ComponentPhaseTrace trace) {
+        trace.updates.add("N" + getWorld().getCurrentTime());
+    }
+}
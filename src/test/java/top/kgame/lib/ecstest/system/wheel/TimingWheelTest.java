@@ -0,0 +1,156 @@
+package top.kgame.lib.ecstest.system.wheel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.core.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 分层时间轮测试用例
+ */
+class TimingWheelTest {
+    private static final long START_TIME = 1_000_000L;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+    }
+
+    @Test
+    void cascadeAcrossLevels() {
+        TimingWheel<Long> wheel = new TimingWheel<>(START_TIME);
+        // 分别落在第0~6层，以及层边界的前后
+        long[] delays = {1, 63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 262_145,
+                16_777_216 + 3, (1L << 30) + 7, (1L << 36) + 11};
+        for (long delay : delays) {
+            wheel.add(delay, START_TIME + delay);
+        }
+        assert wheel.size() == delays.length;
+        // 每次推进到下一个到期时间的前一刻和到期时间，条目正好在到期时输出
+        long previous = 0;
+        for (long delay : delays) {
+            List<Long> expired = new ArrayList<>();
+            if (delay - 1 > previous) {
+                wheel.advance(START_TIME + delay - 1, expired::add);
+                assert expired.isEmpty();
+            }
+            wheel.advance(START_TIME + delay, expired::add);
+            assert expired.equals(List.of(delay));
+            previous = delay;
+        }
+        assert wheel.size() == 0;
+    }
+
+    @Test
+    void cascadeMatchesReference() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(START_TIME);
+        Map<Integer, Long> dueTimes = new HashMap<>();
+        Random random = new Random(20240601L);
+        long now = START_TIME;
+        int nextItem = 0;
+        for (int round = 0; round < 2000; round++) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                // 到期时间跨越多个层级，包括已经到期的时间
+                long dueTime = now + (random.nextLong() >>> (1 + random.nextInt(62))) - 2;
+                wheel.add(nextItem, dueTime);
+                dueTimes.put(nextItem, dueTime);
+                nextItem++;
+            }
+            now += random.nextInt(8) == 0 ? random.nextLong() >>> (40 + random.nextInt(23)) : random.nextInt(100);
+            Set<Integer> expected = new HashSet<>();
+            for (Map.Entry<Integer, Long> entry : dueTimes.entrySet()) {
+                if (entry.getValue() <= now) {
+                    expected.add(entry.getKey());
+                }
+            }
+            Set<Integer> expired = new HashSet<>();
+            wheel.advance(now, item -> {
+                assert expired.add(item);
+            });
+            assert expired.equals(expected);
+            dueTimes.keySet().removeAll(expired);
+            assert wheel.size() == dueTimes.size();
+        }
+    }
+
+    @Test
+    void addWhileAdvancing() {
+        TimingWheel<String> wheel = new TimingWheel<>(START_TIME);
+        wheel.add("repeat", START_TIME + 10);
+        wheel.add("later", START_TIME + 5000);
+        List<String> expired = new ArrayList<>();
+        wheel.advance(START_TIME + 10, item -> {
+            expired.add(item);
+            if (item.equals("repeat")) {
+                // 推进过程中重新加入，不能丢失也不能提前输出
+                wheel.add("repeat", START_TIME + 110);
+                // 推进过程中加入已经到期的条目，在下次推进时输出
+                wheel.add("due", START_TIME + 10);
+                wheel.add("past", START_TIME + 5);
+            }
+        });
+        assert expired.equals(List.of("repeat"));
+        assert wheel.size() == 4;
+
+        expired.clear();
+        wheel.advance(START_TIME + 109, expired::add);
+        assert expired.size() == 2;
+        assert expired.containsAll(List.of("due", "past"));
+
+        expired.clear();
+        wheel.advance(START_TIME + 110, expired::add);
+        assert expired.equals(List.of("repeat"));
+
+        expired.clear();
+        wheel.advance(START_TIME + 5000, expired::add);
+        assert expired.equals(List.of("later"));
+        assert wheel.size() == 0;
+    }
+
+    @Test
+    void advanceToSameTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(START_TIME);
+        wheel.add("first", START_TIME + 64);
+        List<String> expired = new ArrayList<>();
+        wheel.advance(START_TIME + 64, expired::add);
+        assert expired.equals(List.of("first"));
+
+        // 时间没有变化时不会重复输出
+        expired.clear();
+        wheel.advance(START_TIME + 64, expired::add);
+        assert expired.isEmpty();
+
+        // 到期时间等于当前时间的条目在下次推进时输出，即使时间没有变化
+        wheel.add("now", START_TIME + 64);
+        wheel.advance(START_TIME + 64, expired::add);
+        assert expired.equals(List.of("now"));
+        assert wheel.size() == 0;
+    }
+
+    @Test
+    void advanceBackwards() {
+        TimingWheel<String> wheel = new TimingWheel<>(START_TIME);
+        wheel.add("item", START_TIME + 200);
+        List<String> expired = new ArrayList<>();
+        wheel.advance(START_TIME + 100, expired::add);
+        try {
+            wheel.advance(START_TIME + 99, expired::add);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            assert e.getMessage().contains("time goes backwards");
+        }
+        // 抛出异常后状态不变
+        assert expired.isEmpty();
+        assert wheel.size() == 1;
+        wheel.advance(START_TIME + 200, expired::add);
+        assert expired.equals(List.of("item"));
+    }
+}
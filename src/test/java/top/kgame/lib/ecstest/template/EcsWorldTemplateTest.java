@@ -0,0 +1,48 @@
+package top.kgame.lib.ecstest.template;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.kgame.lib.ecs.EcsWorld;
+import top.kgame.lib.ecs.EcsWorldTemplate;
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecstest.template.component.ComponentTemplateTrace;
+
+/**
+ * 通过模板创建World测试用例
+ */
+class EcsWorldTemplateTest {
+    private EcsWorldTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        System.out.println("Setting up " + this.getClass().getSimpleName() + "...");
+        String packageName = EcsWorldTemplateTest.class.getPackage().getName();
+        template = EcsWorldTemplate.create(packageName);
+    }
+
+    @Test
+    void newWorldKeepsSystemOrder() {
+        EcsWorld first = template.newWorld();
+        EcsWorld second = template.newWorld();
+        Entity firstEntity = first.createEntity(1);
+        Entity secondEntity = second.createEntity(1);
+        first.update(1);
+        first.update(2);
+        second.update(1);
+
+        assert firstEntity.getComponent(ComponentTemplateTrace.class).trace.toString().equals("321321");
+        assert secondEntity.getComponent(ComponentTemplateTrace.class).trace.toString().equals("321");
+        assert first.getAllEntity().size() == 1;
+        assert second.getAllEntity().size() == 1;
+
+        // 与直接创建的World顺序一致
+        EcsWorld generated = EcsWorld.generateInstance(EcsWorldTemplateTest.class.getPackage().getName());
+        Entity generatedEntity = generated.createEntity(1);
+        generated.update(1);
+        assert generatedEntity.getComponent(ComponentTemplateTrace.class).trace.toString().equals("321");
+
+        first.close();
+        second.close();
+        generated.close();
+    }
+}
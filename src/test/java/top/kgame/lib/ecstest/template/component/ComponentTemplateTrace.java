@@ -0,0 +1,7 @@
+package top.kgame.lib.ecstest.template.component;
+
+import top.kgame.lib.ecs.EcsComponent;
+
+public class ComponentTemplateTrace implements EcsComponent {
+    public final StringBuilder trace = new StringBuilder();
+}
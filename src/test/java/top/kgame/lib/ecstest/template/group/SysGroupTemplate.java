@@ -0,0 +1,16 @@
+package top.kgame.lib.ecstest.template.group;
+
+import top.kgame.lib.ecs.EcsSystemGroup;
+
+public class SysGroupTemplate extends EcsSystemGroup {
+
+    @Override
+    protected void onStart() {
+
+    }
+
+    @Override
+    protected void onStop() {
+
+    }
+}
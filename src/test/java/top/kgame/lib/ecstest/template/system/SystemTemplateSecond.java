@@ -0,0 +1,16 @@
+package top.kgame.lib.ecstest.template.system;
+
+import top.kgame.lib.ecs.Entity;
+import top.kgame.lib.ecs.annotation.UpdateInGroup;
+import top.kgame.lib.ecs.extensions.system.EcsUpdateSystemOne;
+import top.kgame.lib.ecstest.template.component.ComponentTemplateTrace;
+import top.kgame.lib.ecstest.template.group.SysGroupTemplate;
+
+@UpdateInGroup(SysGroupTemplate.class)
+public class SystemTemplateSecond extends EcsUpdateSystemOne<ComponentTemplateTrace> {
+
+    @Override
+    protected void update(Entity entity, ComponentTemplateTrace component) {
+        component.trace.append("2");
+    }
+}